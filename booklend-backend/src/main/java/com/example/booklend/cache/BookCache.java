@@ -0,0 +1,86 @@
+package com.example.booklend.cache;
+
+import com.example.booklend.event.CatalogChangedEvent;
+import com.example.booklend.event.RentalChangedEvent;
+import com.example.booklend.model.Book;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, TTL-evicting cache of single books (with borrowed counts) for read paths. Books
+ * handed out are shared between requests and must not be modified; code that edits a book
+ * loads it from the repository instead.
+ * <p>
+ * Entries remember the {@link CatalogVersion} of their book and are ignored once it moves on,
+ * so a borrow or return on this node is never followed by a stale stock count. Admin edits and
+ * rentals also evict explicitly and publish the eviction on the {@link CacheInvalidationBus}
+ * for other nodes. Stats are exported as {@code cache.*} metrics with {@code cache=books}.
+ */
+@Component
+public class BookCache {
+
+    static final String NAME = "books";
+
+    private record Entry(long version, Book book) {}
+
+    private final CatalogVersion catalogVersion;
+    private final CacheInvalidationBus invalidationBus;
+    private final Cache<Long, Entry> cache;
+
+    public BookCache(CatalogVersion catalogVersion,
+                     CacheInvalidationBus invalidationBus,
+                     MeterRegistry meterRegistry,
+                     @Value("${catalog.book-cache.ttl:10m}") Duration ttl,
+                     @Value("${catalog.book-cache.max-size:5000}") long maxSize) {
+        this.catalogVersion = catalogVersion;
+        this.invalidationBus = invalidationBus;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+        invalidationBus.subscribe(NAME, key -> {
+            if (key == null) cache.invalidateAll();
+            else cache.invalidate(CacheInvalidationBus.longKey(key));
+        });
+    }
+
+    /**
+     * Returns the cached book, or loads it and caches the result. Missing books are not cached.
+     */
+    public Optional<Book> get(Long id, Supplier<Optional<Book>> loader) {
+        if (id == null) return Optional.empty();
+        // Version before load, as for the catalog ETags: a racing write leaves the entry already stale
+        long version = catalogVersion.ofBook(id);
+        Entry entry = cache.getIfPresent(id);
+        if (entry != null && entry.version() == version) return Optional.of(entry.book());
+
+        Optional<Book> loaded = loader.get();
+        loaded.ifPresentOrElse(book -> cache.put(id, new Entry(version, book)), () -> cache.invalidate(id));
+        return loaded;
+    }
+
+    public void evict(Long id) {
+        invalidationBus.publish(NAME, id);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        evict(event.bookId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRentalChanged(RentalChangedEvent event) {
+        evict(event.bookId());
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.booklend.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Fan-out of cache invalidations to every node running the application. Caches publish the key
+ * they dropped locally and subscribe to drop keys published elsewhere. A key of {@code null}
+ * means "everything in that cache".
+ * <p>
+ * {@link LocalCacheInvalidationBus} delivers within the JVM only; a deployment with several
+ * nodes replaces it with a bean backed by a broker (Redis pub/sub, Postgres LISTEN/NOTIFY, ...).
+ */
+public interface CacheInvalidationBus {
+
+    void publish(String cacheName, Object key);
+
+    void subscribe(String cacheName, Consumer<Object> listener);
+
+    /**
+     * Reads a published id back as a {@code Long}. A broker may deliver a number it serialized
+     * as any {@link Number} type, so subscribers convert rather than cast.
+     */
+    static Long longKey(Object key) {
+        return key == null ? null : ((Number) key).longValue();
+    }
+}
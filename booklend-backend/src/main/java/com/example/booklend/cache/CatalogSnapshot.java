@@ -0,0 +1,128 @@
+package com.example.booklend.cache;
+
+import com.example.booklend.event.CatalogChangedEvent;
+import com.example.booklend.event.RentalChangedEvent;
+import com.example.booklend.model.Book;
+import com.example.booklend.repository.BookRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The full catalog ({@code GET /api/books}) held as ready-to-send JSON bytes, plain and gzipped,
+ * so the hot path neither queries nor serializes. Rebuilt on a background thread shortly after
+ * catalog or rental changes, with bursts of changes collapsed into one rebuild.
+ * <p>
+ * A snapshot is tagged with the {@link CatalogVersion} it was built from and is served under that
+ * version's ETag. Every borrow and return bumps the version, so under rental traffic the latest
+ * snapshot is almost always a step behind; it keeps being handed out while the next rebuild is
+ * pending, as long as it is younger than {@code catalog.snapshot.max-stale-ms}.
+ */
+@Component
+public class CatalogSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshot.class);
+
+    public record Snapshot(long version, byte[] json, byte[] gzip) {}
+
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private CatalogVersion catalogVersion;
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Value("${catalog.snapshot.debounce-ms:200}")
+    private long debounceMs;
+    @Value("${catalog.snapshot.max-stale-ms:5000}")
+    private long maxStaleMs;
+
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "catalog-snapshot");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private record Built(Snapshot snapshot, long builtAtNanos) {}
+    private volatile Built latest;
+
+    /**
+     * @return the latest snapshot, which may be behind the current catalog version (a rebuild is then
+     * requested), or null if there is none yet or it is too old to serve
+     */
+    public Snapshot latest() {
+        Built b = latest;
+        if (b != null && b.snapshot().version() == catalogVersion.current()) return b.snapshot();
+        requestRebuild();
+        if (b == null || System.nanoTime() - b.builtAtNanos() > TimeUnit.MILLISECONDS.toNanos(maxStaleMs)) return null;
+        return b.snapshot();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        requestRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        requestRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRentalChanged(RentalChangedEvent event) {
+        requestRebuild();
+    }
+
+    void requestRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuilder.schedule(() -> {
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    logger.warn("Catalog snapshot rebuild failed: {}", e.getMessage());
+                }
+            }, debounceMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void rebuild() {
+        // Version first: if the catalog changes while we load, the snapshot is born stale and rebuilt again
+        long version = catalogVersion.current();
+        List<Book> books = bookRepository.findAllWithBorrowedCount();
+        byte[] json = jsonMapper.writeValueAsBytes(books);
+        latest = new Built(new Snapshot(version, json, gzip(json)), System.nanoTime());
+        logger.debug("Catalog snapshot rebuilt: {} books, {} bytes", books.size(), json.length);
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.booklend.cache;
+
+import com.example.booklend.event.CatalogChangedEvent;
+import com.example.booklend.event.RentalChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the catalog and of each book, bumped after every committed admin edit
+ * and every borrow/return (stock and borrowed counts are part of the book JSON), and for any
+ * other JPA write to books or rentals via {@link CatalogVersionListener}. Versions drive
+ * the strong ETags on the catalog endpoints, so an unchanged catalog can be answered with
+ * 304 before touching the database.
+ * <p>
+ * Versions start from the boot time so ETags handed out by a previous run are never reused.
+ * Callers must read the version <em>before</em> loading data: a response may then carry an
+ * older version than its content, which only costs a refetch, never a stale 304.
+ * <p>
+ * The counter lives in this JVM. Bumps are fanned out on the {@link CacheInvalidationBus} so
+ * every node moves on when any node commits a change, but the numbers themselves differ
+ * between nodes. Every ETag therefore also carries a token unique to this process: behind a
+ * load balancer without sticky sessions a client that lands on another node gets a 200 rather
+ * than a 304, never a 304 for a version that node never served.
+ */
+@Component
+public class CatalogVersion {
+
+    static final String BUS_CHANNEL = "catalog-version";
+
+    private final long initial = System.currentTimeMillis();
+    private final String node = Long.toString(ThreadLocalRandom.current().nextLong() >>> 16, 36);
+    private final AtomicLong catalog = new AtomicLong(initial);
+    private final Map<Long, Long> books = new ConcurrentHashMap<>();
+    private final CacheInvalidationBus invalidationBus;
+    private volatile Instant lastModified = Instant.now();
+
+    public CatalogVersion(CacheInvalidationBus invalidationBus) {
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(BUS_CHANNEL, key -> bump(CacheInvalidationBus.longKey(key)));
+    }
+
+    public long current() {
+        return catalog.get();
+    }
+
+    public long ofBook(Long bookId) {
+        return bookId == null ? initial : books.getOrDefault(bookId, initial);
+    }
+
+    public Instant lastModified() {
+        return lastModified;
+    }
+
+    public String catalogEtag() {
+        return catalogEtag(current());
+    }
+
+    public String catalogEtag(long version) {
+        return etag("catalog", version);
+    }
+
+    // Tag for any representation derived from the whole catalog at the given version
+    public String etag(String kind, long version) {
+        return "\"" + kind + "-" + node + "-" + version + "\"";
+    }
+
+    // Strong ETags must differ per representation, so the gzipped body gets its own tag
+    public static String gzipVariant(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    public String bookEtag(Long bookId) {
+        return etag("book-" + bookId, ofBook(bookId));
+    }
+
+    /**
+     * Strong comparison against an If-None-Match header value, which may list several tags or be "*".
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        committed(event.bookId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRentalChanged(RentalChangedEvent event) {
+        committed(event.bookId());
+    }
+
+    // A committed change: bumps here and, through the bus, on every other node
+    void committed(Long bookId) {
+        invalidationBus.publish(BUS_CHANNEL, bookId);
+    }
+
+    // Local only, e.g. at flush before the change is visible to other nodes
+    void bump(Long bookId) {
+        long version = catalog.incrementAndGet();
+        if (bookId != null) books.put(bookId, version);
+        lastModified = Instant.now();
+    }
+}
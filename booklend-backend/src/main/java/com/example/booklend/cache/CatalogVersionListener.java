@@ -0,0 +1,45 @@
+package com.example.booklend.cache;
+
+import com.example.booklend.model.Book;
+import com.example.booklend.model.Rental;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA listener on {@link Book} and {@link Rental} that bumps the {@link CatalogVersion} for
+ * writes that don't go through the catalog/rental events (repository saves, cascades, bulk
+ * deletes of rentals). Bumps once at flush and again once the transaction completes, so a
+ * reader that raced the commit never pairs the final version with pre-commit data; only the
+ * second bump is sent to other nodes.
+ */
+public class CatalogVersionListener {
+
+    private final CatalogVersion catalogVersion;
+
+    public CatalogVersionListener(CatalogVersion catalogVersion) {
+        this.catalogVersion = catalogVersion;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        Long bookId = null;
+        if (entity instanceof Book book) bookId = book.getId();
+        else if (entity instanceof Rental rental && rental.getBook() != null) bookId = rental.getBook().getId();
+
+        Long changed = bookId;
+        catalogVersion.bump(changed);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    catalogVersion.committed(changed);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.booklend.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process {@link CacheInvalidationBus}: delivers synchronously to every subscriber in this JVM,
+ * including the publisher. Enough for a single node, and lets tests wire several caches to one
+ * bus to stand in for several nodes.
+ */
+@Component
+public class LocalCacheInvalidationBus implements CacheInvalidationBus {
+
+    private final Map<String, List<Consumer<Object>>> subscribers = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(String cacheName, Object key) {
+        for (Consumer<Object> listener : subscribers.getOrDefault(cacheName, List.of())) {
+            listener.accept(key);
+        }
+    }
+
+    @Override
+    public void subscribe(String cacheName, Consumer<Object> listener) {
+        subscribers.computeIfAbsent(cacheName, n -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+}
@@ -3,14 +3,18 @@ package com.example.booklend.controller;
 import com.example.booklend.dto.BookCreateDto;
 import com.example.booklend.model.Book;
 import com.example.booklend.service.AdminBookService;
+import com.example.booklend.service.BookImportService;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+
 @RestController
 @RequestMapping("/api/admin/books")
 @CrossOrigin(origins = "http://136.115.204.67:4200")
@@ -18,6 +22,9 @@ public class AdminBookController {
 	@Autowired
 	private AdminBookService adminBookService;
 
+	@Autowired
+	private BookImportService bookImportService;
+
 	@PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
 	public ResponseEntity<?> createBook(
 			@Parameter(
@@ -29,11 +36,24 @@ public class AdminBookController {
 		return adminBookService.create(book, image);
 	}
 
+	/**
+	 * Streams a CSV or NDJSON feed of books into the catalog and reports the rows it skipped.
+	 */
+	@PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+	public ResponseEntity<?> importBooks(HttpServletRequest request) throws IOException {
+		return bookImportService.importBooks(request.getInputStream(), request.getContentType());
+	}
+
 	@PutMapping("/{id}")
 	public ResponseEntity<?> updateBook(@PathVariable Long id, @RequestBody Book book) {
 		return adminBookService.update(id, book);
 	}
 
+	@PutMapping(value = "/{id}/cover", consumes = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_GIF_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+	public ResponseEntity<?> replaceCover(@PathVariable Long id, HttpServletRequest request) throws IOException {
+		return adminBookService.replaceCover(id, request.getInputStream(), request.getContentLengthLong());
+	}
+
 	@DeleteMapping("/{id}")
 	public ResponseEntity<?> deleteBook(@PathVariable Long id) {
 		return adminBookService.delete(id);
@@ -2,6 +2,7 @@ package com.example.booklend.controller;
 
 import com.example.booklend.service.BookService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,12 +14,65 @@ public class BookController {
     private BookService bookService;
 
     @GetMapping
-    public ResponseEntity<?> listBooks() {
-        return bookService.listAll();
+    public ResponseEntity<?> listBooks(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return bookService.listAll(ifNoneMatch, acceptEncoding);
+    }
+
+    @GetMapping(params = "page")
+    public ResponseEntity<?> searchBooks(
+            @RequestParam int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String genre,
+            @RequestParam(defaultValue = "false") boolean inStockOnly,
+            @RequestParam(required = false) String q) {
+        return bookService.search(page, size, sort, genre, inStockOnly, q);
+    }
+
+    @GetMapping("/genres")
+    public ResponseEntity<?> genres(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return bookService.genres(ifNoneMatch);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> fullTextSearch(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        return bookService.fullTextSearch(q, limit);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "8") int limit) {
+        return bookService.suggest(prefix, limit);
+    }
+
+    @GetMapping("/{id}/images")
+    public ResponseEntity<?> images(@PathVariable Long id) {
+        return bookService.images(id);
+    }
+
+    @GetMapping("/{id}/images/{variant}")
+    public ResponseEntity<?> image(@PathVariable Long id, @PathVariable String variant) {
+        return bookService.image(id, variant);
+    }
+
+    @GetMapping("/scroll")
+    public ResponseEntity<?> scrollBooks(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String sort) {
+        return bookService.scroll(cursor, size, sort);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getBook(@PathVariable Long id) {
-        return bookService.getById(id);
+    public ResponseEntity<?> getBook(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return bookService.getById(id, ifNoneMatch);
     }
 }
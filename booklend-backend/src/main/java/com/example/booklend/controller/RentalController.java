@@ -28,6 +28,14 @@ public class RentalController {
         return rentalService.getMyRentals(userDetails);
     }
 
+    @GetMapping("/my/scroll")
+    public ResponseEntity<?> scrollMyRentals(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return rentalService.scrollMyRentals(cursor, size, userDetails);
+    }
+
     @PostMapping("/{id}/renew")
     public ResponseEntity<?> renewBook(
             @PathVariable Long id,
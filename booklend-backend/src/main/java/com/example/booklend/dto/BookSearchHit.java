@@ -0,0 +1,14 @@
+package com.example.booklend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BookSearchHit {
+    private Long id;
+    private String title;
+    private String author;
+    private String genre;
+    private double score;
+}
@@ -0,0 +1,15 @@
+package com.example.booklend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BookSuggestion {
+    public enum Type { TITLE, AUTHOR }
+
+    private String text;
+    private Type type;
+    // Active borrows across the books behind this suggestion
+    private long popularity;
+}
@@ -0,0 +1,14 @@
+package com.example.booklend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    // Opaque token for the next page; null when this is the last page.
+    private String nextCursor;
+}
@@ -0,0 +1,16 @@
+package com.example.booklend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class GenreStatsDto {
+    private String genre;
+    private long titles;
+    // Copies currently on the shelf
+    private long totalStock;
+    private long borrowed;
+    // Share of copies on the shelf: totalStock / (totalStock + borrowed), 0 when the genre has no copies
+    private double availabilityRatio;
+}
@@ -0,0 +1,25 @@
+package com.example.booklend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ImportReport {
+    private long received;
+    private long imported;
+    private long failed;
+    // The first rows that failed; errorsTruncated tells whether more were left out
+    private List<RowError> errors;
+    private boolean errorsTruncated;
+
+    @Data
+    @AllArgsConstructor
+    public static class RowError {
+        // 1-based line of the row in the uploaded file (for CSV, the line the record starts on)
+        private long line;
+        private String message;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.booklend.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Row of the overdue-rental scan, projected straight from the query.
+ */
+public record OverdueRental(Long rentalId, Long userId, String email, Long bookId, String bookTitle, LocalDate dueDate) {}
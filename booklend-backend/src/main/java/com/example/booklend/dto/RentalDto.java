@@ -1,11 +1,15 @@
 // java
 package com.example.booklend.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class RentalDto {
     private Long id;
     private Long bookId;
@@ -0,0 +1,32 @@
+package com.example.booklend.event;
+
+import com.example.booklend.model.Book;
+
+/**
+ * Published after a book is created, edited or removed so that in-memory views of the
+ * catalog can update themselves without the writer knowing about them.
+ *
+ * @param bookId the book concerned, or null for {@link Type#IMPORTED}
+ * @param book the saved book, or null for {@link Type#DELETED} and {@link Type#IMPORTED}
+ */
+public record CatalogChangedEvent(Type type, Long bookId, Book book) {
+
+    // IMPORTED: many books were added or repaired at once; views should reload rather than apply a delta
+    public enum Type { CREATED, UPDATED, DELETED, IMPORTED }
+
+    public static CatalogChangedEvent created(Book book) {
+        return new CatalogChangedEvent(Type.CREATED, book.getId(), book);
+    }
+
+    public static CatalogChangedEvent updated(Book book) {
+        return new CatalogChangedEvent(Type.UPDATED, book.getId(), book);
+    }
+
+    public static CatalogChangedEvent deleted(Long bookId) {
+        return new CatalogChangedEvent(Type.DELETED, bookId, null);
+    }
+
+    public static CatalogChangedEvent imported() {
+        return new CatalogChangedEvent(Type.IMPORTED, null, null);
+    }
+}
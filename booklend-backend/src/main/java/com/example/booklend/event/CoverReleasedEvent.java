@@ -0,0 +1,6 @@
+package com.example.booklend.event;
+
+/**
+ * Published when a book that used a cover file is removed; the file may now be unreferenced.
+ */
+public record CoverReleasedEvent(String filename) {}
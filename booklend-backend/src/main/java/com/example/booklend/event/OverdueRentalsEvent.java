@@ -0,0 +1,18 @@
+package com.example.booklend.event;
+
+import com.example.booklend.dto.OverdueRental;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Published by the overdue scan for each batch of rentals past their due date, so reminders
+ * can be sent without the scanner knowing how.
+ */
+public record OverdueRentalsEvent(List<Notice> notices) {
+
+    /**
+     * @param fee late fee accrued so far, already capped
+     */
+    public record Notice(OverdueRental rental, long daysOverdue, BigDecimal fee) {}
+}
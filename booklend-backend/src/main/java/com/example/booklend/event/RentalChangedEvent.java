@@ -0,0 +1,17 @@
+package com.example.booklend.event;
+
+/**
+ * Published after a book is borrowed or returned.
+ *
+ * @param activeDelta change in the book's active-rental count: +1 on borrow, -1 on return
+ */
+public record RentalChangedEvent(Long bookId, int activeDelta) {
+
+    public static RentalChangedEvent borrowed(Long bookId) {
+        return new RentalChangedEvent(bookId, 1);
+    }
+
+    public static RentalChangedEvent returned(Long bookId) {
+        return new RentalChangedEvent(bookId, -1);
+    }
+}
@@ -3,6 +3,8 @@ package com.example.booklend.mapper;
 import com.example.booklend.dto.RentalDto;
 import com.example.booklend.model.Rental;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -27,4 +29,13 @@ public final class RentalMapper {
     public static List<RentalDto> toDtoList(List<Rental> rentals) {
         return rentals.stream().map(RentalMapper::toDto).collect(Collectors.toList());
     }
+
+    // Hot and archived rows share one id sequence, so ordering by id interleaves them correctly
+    public static List<RentalDto> merge(List<RentalDto> rentals, List<RentalDto> archived) {
+        List<RentalDto> merged = new ArrayList<>(rentals.size() + archived.size());
+        merged.addAll(rentals);
+        merged.addAll(archived);
+        merged.sort(Comparator.comparing(RentalDto::getId));
+        return merged;
+    }
 }
@@ -0,0 +1,39 @@
+package com.example.booklend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.NotFound;
+import org.hibernate.annotations.NotFoundAction;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A returned rental moved out of {@code rentals} by the archiver. Read-only from the
+ * application's point of view; rows keep the id they had in the hot table.
+ */
+@Entity
+@Table(name = "rentals_archive")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedRental {
+    @Id
+    private Long id;
+
+    // The archive has no foreign keys, so the user or book may have been removed since
+    @ManyToOne
+    @JoinColumn(name = "user_id")
+    @NotFound(action = NotFoundAction.IGNORE)
+    private User user;
+
+    @ManyToOne
+    @JoinColumn(name = "book_id")
+    @NotFound(action = NotFoundAction.IGNORE)
+    private Book book;
+
+    private LocalDate rentalDate;
+    private LocalDate dueDate;
+    private LocalDate returnedDate;
+    private LocalDateTime archivedAt;
+}
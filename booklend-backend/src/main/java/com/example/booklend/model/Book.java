@@ -1,11 +1,18 @@
 package com.example.booklend.model;
 
+import com.example.booklend.cache.CatalogVersionListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+        @Index(name = "ix_books_genre", columnList = "genre"),
+        @Index(name = "ix_books_title_id", columnList = "title, id"),
+        @Index(name = "ix_books_author", columnList = "author")
+})
+@EntityListeners(CatalogVersionListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -23,8 +30,11 @@ public class Book {
     private Integer stockCount;
 	private String imageFilename;
 
-    @Transient
-    private Long borrowedCount;
+    // Copies currently out on loan; maintained by the rental statements, see BorrowedCountReconciler.
+    // Never written from the entity, so saving a book loaded earlier cannot revert a borrow or return.
+    @Column(name = "borrowed_count", nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private Long borrowedCount = 0L;
 
     public Book(String title, String author, String genre, String summary, Integer stockCount, String imageFilename) {
         this.title = title;
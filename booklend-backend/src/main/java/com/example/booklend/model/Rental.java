@@ -1,5 +1,6 @@
 package com.example.booklend.model;
 
+import com.example.booklend.cache.CatalogVersionListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -7,6 +8,7 @@ import java.time.LocalDate;
 
 @Entity
 @Table(name = "rentals")
+@EntityListeners(CatalogVersionListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -15,15 +17,18 @@ public class Rental {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    // Lazy: rental lists are read through DTO projections, and the few paths that need the book
+    // fetch-join it (RentalRepository.findWithBookById)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id")
     private Book book;
 
     private LocalDate rentalDate;
     private LocalDate dueDate;
     private boolean returned;
+    private LocalDate returnedDate;
 }
@@ -1,13 +1,16 @@
 package com.example.booklend.model;
 
 import jakarta.persistence.*;
+import com.example.booklend.security.PrincipalCacheInvalidator;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.List;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(PrincipalCacheInvalidator.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -33,6 +36,13 @@ public class User implements UserDetails {
     @Enumerated(EnumType.STRING)
     private Role role;
 
+    // Maintained by the reservation/return statements so the per-user limit is a single guarded update.
+    // Never written from the entity, so saving a user loaded earlier (e.g. a rehash on login) cannot
+    // revert a reservation or return.
+    @Column(name = "active_rental_count", nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private int activeRentalCount;
+
     @Override
     public java.util.Collection<? extends org.springframework.security.core.GrantedAuthority> getAuthorities() {
         return List.of(new org.springframework.security.core.authority.SimpleGrantedAuthority("ROLE_" + role.name()));
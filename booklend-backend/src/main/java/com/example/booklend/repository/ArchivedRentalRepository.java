@@ -0,0 +1,50 @@
+package com.example.booklend.repository;
+
+import com.example.booklend.dto.RentalDto;
+import com.example.booklend.model.ArchivedRental;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ArchivedRentalRepository extends JpaRepository<ArchivedRental, Long> {
+    // Same projections as RentalRepository.findDtosByUserId; archived rentals are always returned
+    @Query("select new com.example.booklend.dto.RentalDto(a.id, b.id, b.title, b.author, a.rentalDate, a.dueDate, true) " +
+            "from ArchivedRental a left join a.book b where a.user.id = :userId order by a.id")
+    List<RentalDto> findDtosByUserId(@Param("userId") Long userId);
+
+    @Query("select new com.example.booklend.dto.RentalDto(a.id, b.id, b.title, b.author, a.rentalDate, a.dueDate, true) " +
+            "from ArchivedRental a left join a.book b where a.user.id = :userId and a.id > :afterId order by a.id")
+    List<RentalDto> findDtosByUserIdAfter(@Param("userId") Long userId, @Param("afterId") Long afterId, Pageable limit);
+    @Transactional
+    long deleteByBookId(Long bookId);
+
+    /**
+     * Moves one batch of rentals returned before the cutoff into the archive, in a single
+     * statement and transaction. Rows locked by someone else are skipped and picked up by a
+     * later batch.
+     *
+     * @return number of rentals moved
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            with moved as (
+                delete from rentals where id in (
+                    select id from rentals
+                    where returned = true and returned_date < :cutoff
+                    order by returned_date, id
+                    limit :batchSize
+                    for update skip locked)
+                returning id, user_id, book_id, rental_date, due_date, returned_date)
+            insert into rentals_archive (id, user_id, book_id, rental_date, due_date, returned_date)
+            select id, user_id, book_id, rental_date, due_date, returned_date from moved
+            on conflict (id) do nothing
+            """, nativeQuery = true)
+    int archiveReturnedBefore(@Param("cutoff") LocalDate cutoff, @Param("batchSize") int batchSize);
+}
@@ -1,8 +1,131 @@
 package com.example.booklend.repository;
 
+import com.example.booklend.dto.GenreStatsDto;
 import com.example.booklend.model.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.util.List;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
+
+    // borrowedCount is a persisted column kept in step by the reservation and return statements
+    // (and repaired by BorrowedCountReconciler), so catalog reads touch the books table only.
+    @Query("select b from Book b order by b.id")
+    List<Book> findAllWithBorrowedCount();
+
+    // Optional filters are passed as null/false. The title/author match is a case-insensitive
+    // prefix (never a leading wildcard), served by the lower(...) text_pattern_ops indexes from V6.
+    @Query("select b from Book b " +
+            "where (:genre is null or b.genre = :genre) " +
+            "and (:inStockOnly = false or b.stockCount > 0) " +
+            "and (:prefix is null or lower(b.title) like :prefix or lower(b.author) like :prefix)")
+    Page<Book> searchByPrefix(@Param("genre") String genre,
+                              @Param("inStockOnly") boolean inStockOnly,
+                              @Param("prefix") String prefix,
+                              Pageable pageable);
+
+    // Keyset (cursor) scrolling: each page seeks past the last (title, id) or id seen, so deep
+    // pages cost the same as the first one. The Pageable only carries the limit.
+    @Query("select b from Book b order by b.title, b.id")
+    List<Book> scrollByTitleFirst(Pageable limit);
+
+    // Row-value comparison, so Postgres turns it into a single seek on ix_books_title_id; the
+    // equivalent "title > :title or (title = :title and id > :id)" is not used as an index bound
+    @Query(value = "select * from books b where (b.title, b.id) > (:title, :id) order by b.title, b.id",
+            nativeQuery = true)
+    List<Book> scrollByTitleAfter(@Param("title") String title, @Param("id") Long id, Pageable limit);
+
+    @Query("select b from Book b where b.id > :id order by b.id")
+    List<Book> scrollByIdAfter(@Param("id") Long id, Pageable limit);
+
+    default List<Book> scrollByTitle(String afterTitle, Long afterId, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        return afterTitle == null ? scrollByTitleFirst(page) : scrollByTitleAfter(afterTitle, afterId, page);
+    }
+
+    default List<Book> scrollById(Long afterId, int limit) {
+        return scrollByIdAfter(afterId == null ? 0L : afterId, PageRequest.of(0, limit));
+    }
+
+    default Page<Book> searchWithBorrowedCount(String genre, boolean inStockOnly, String query, Pageable pageable) {
+        String prefix = query == null || query.isBlank() ? null : escapeLike(query.trim().toLowerCase()) + "%";
+        return searchByPrefix(genre, inStockOnly, prefix, pageable);
+    }
+
+    // One row per genre: [genre, titles, copies in stock, active borrows]
+    @Query("select b.genre, count(b), coalesce(sum(b.stockCount), 0), coalesce(sum(b.borrowedCount), 0) " +
+            "from Book b group by b.genre order by b.genre")
+    List<Object[]> genreStatsRows();
+
+    default List<GenreStatsDto> genreStats() {
+        return genreStatsRows().stream().map(row -> {
+            long stock = ((Number) row[2]).longValue();
+            long borrowed = ((Number) row[3]).longValue();
+            long copies = stock + borrowed;
+            return new GenreStatsDto((String) row[0], ((Number) row[1]).longValue(), stock, borrowed,
+                    copies == 0 ? 0.0 : (double) stock / copies);
+        }).toList();
+    }
+
+    // Reference count of a (shared, content-addressed) cover file
+    long countByImageFilename(String imageFilename);
+
+    /**
+     * Puts a returned copy back on the shelf.
+     */
+    @Modifying
+    @Query("update Book b set b.stockCount = b.stockCount + 1, b.borrowedCount = b.borrowedCount - 1 where b.id = :id")
+    int returnCopy(@Param("id") Long id);
+
+    /**
+     * Applies an admin edit to the descriptive columns and stock, leaving the borrowed counter
+     * (maintained by the rental statements) alone.
+     *
+     * @return number of books updated, 0 if the book no longer exists
+     */
+    @Modifying
+    @Transactional
+    @Query("update Book b set b.title = :title, b.author = :author, b.genre = :genre, b.summary = :summary, " +
+            "b.stockCount = :stockCount where b.id = :id")
+    int updateDetails(@Param("id") Long id,
+                      @Param("title") String title,
+                      @Param("author") String author,
+                      @Param("genre") String genre,
+                      @Param("summary") String summary,
+                      @Param("stockCount") Integer stockCount);
+
+    /**
+     * Points a book at a new cover without rewriting (and possibly reverting) its counters.
+     *
+     * @return number of books updated, 0 if the book no longer exists
+     */
+    @Modifying
+    @Transactional
+    @Query("update Book b set b.imageFilename = :filename where b.id = :id")
+    int updateImageFilename(@Param("id") Long id, @Param("filename") String filename);
+
+    /**
+     * Recounts borrowed copies from active rentals for books whose counter has drifted.
+     *
+     * @return number of books repaired
+     */
+    @Modifying
+    @Query(value = """
+            update books b set borrowed_count = c.active
+            from (select bk.id, (select count(*) from rentals r where r.book_id = bk.id and r.returned = false) as active
+                  from books bk) c
+            where c.id = b.id and b.borrowed_count <> c.active
+            """, nativeQuery = true)
+    int reconcileBorrowedCounts();
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 }
@@ -0,0 +1,32 @@
+package com.example.booklend.repository;
+
+import com.example.booklend.model.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    /**
+     * Takes the lease if it is free or expired, or extends it if this owner already holds it.
+     * Expiry is judged by the database clock so nodes with skewed clocks agree.
+     *
+     * @return 1 if the caller now holds the lease, 0 if another owner does
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            insert into job_leases (name, owner, locked_until)
+            values (:name, :owner, now() + make_interval(secs => :seconds))
+            on conflict (name) do update set owner = excluded.owner, locked_until = excluded.locked_until
+            where job_leases.locked_until < now() or job_leases.owner = excluded.owner
+            """, nativeQuery = true)
+    int acquire(@Param("name") String name, @Param("owner") String owner, @Param("seconds") long seconds);
+
+    @Transactional
+    @Modifying
+    @Query(value = "update job_leases set locked_until = now() where name = :name and owner = :owner", nativeQuery = true)
+    int release(@Param("name") String name, @Param("owner") String owner);
+}
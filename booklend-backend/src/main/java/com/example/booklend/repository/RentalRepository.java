@@ -1,15 +1,110 @@
 package com.example.booklend.repository;
 
+import com.example.booklend.dto.OverdueRental;
+import com.example.booklend.dto.RentalDto;
 import com.example.booklend.model.Rental;
 import com.example.booklend.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface RentalRepository extends JpaRepository<Rental, Long> {
     List<Rental> findByUserId(Long userId);
+    // Keyset scrolling over a user's history; the Pageable only carries the limit.
+    List<Rental> findByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long afterId, Pageable limit);
     List<Rental> findByUserIdAndReturnedFalse(Long userId);
+
+    // Rental history as DTOs in one statement: the book columns come from a join instead of a
+    // select per rental
+    @Query("select new com.example.booklend.dto.RentalDto(r.id, b.id, b.title, b.author, r.rentalDate, r.dueDate, r.returned) " +
+            "from Rental r left join r.book b where r.user.id = :userId order by r.id")
+    List<RentalDto> findDtosByUserId(@Param("userId") Long userId);
+
+    @Query("select new com.example.booklend.dto.RentalDto(r.id, b.id, b.title, b.author, r.rentalDate, r.dueDate, r.returned) " +
+            "from Rental r left join r.book b where r.user.id = :userId and r.id > :afterId order by r.id")
+    List<RentalDto> findDtosByUserIdAfter(@Param("userId") Long userId, @Param("afterId") Long afterId, Pageable limit);
+
+    // Active rentals past due, oldest first, read through a cursor 500 rows at a time. Must be
+    // consumed inside a transaction and closed.
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.booklend.dto.OverdueRental(r.id, u.id, u.email, b.id, b.title, r.dueDate) " +
+            "from Rental r join r.user u join r.book b " +
+            "where r.returned = false and r.dueDate < :today order by r.dueDate, r.id")
+    Stream<OverdueRental> streamOverdue(@Param("today") LocalDate today);
+
+    // For renew/return, which read the book to build the response
+    @Query("select r from Rental r join fetch r.book where r.id = :id")
+    Optional<Rental> findWithBookById(@Param("id") Long id);
+
     boolean existsByUserIdAndBookIdAndReturnedFalse(Long userId, Long bookId);
     long countByUserIdAndReturnedFalse(Long userId);
     long countByBookIdAndReturnedFalse(Long bookId);
+    @Transactional
     long deleteByBookId(Long bookId);
+
+    /**
+     * @return 1 if this call marked the rental returned, 0 if it was already returned
+     */
+    @Modifying
+    @Query("update Rental r set r.returned = true, r.returnedDate = current_date where r.id = :id and r.returned = false")
+    int markReturned(@Param("id") Long id);
+
+    /**
+     * Moves the due date of one of the user's active rentals. Only the due date is written, so a
+     * return committed after the rental was read is never undone.
+     *
+     * @return 1 if the rental was renewed, 0 if it is not the user's or was already returned
+     */
+    @Modifying
+    @Query("update Rental r set r.dueDate = :due where r.id = :id and r.user.id = :userId and r.returned = false")
+    int renew(@Param("id") Long id, @Param("userId") Long userId, @Param("due") LocalDate due);
+
+    /**
+     * Reserves a copy in a single statement: locks the user and book rows only if the user is
+     * under the active-rental limit and the book is in stock, bumps the user's counter, moves a
+     * copy from stock to borrowed and inserts the rental. A second active rental of the same book violates
+     * the partial unique index {@code ux_rentals_active_user_book}, which rolls the whole
+     * statement back.
+     *
+     * @return one row [rental id, book title, book author], or no rows if the guard failed
+     */
+    @Transactional
+    @Query(value = """
+            with guard as (
+                select u.id as user_id, b.id as book_id
+                from users u, books b
+                where u.id = :userId and b.id = :bookId
+                  and u.active_rental_count < :maxActive and b.stock_count > 0
+                for update of u, b),
+            claimed_user as (
+                update users set active_rental_count = active_rental_count + 1
+                where id = (select user_id from guard)
+                returning id),
+            claimed_book as (
+                update books set stock_count = stock_count - 1, borrowed_count = borrowed_count + 1
+                where id = (select book_id from guard)
+                returning id, title, author),
+            inserted as (
+                insert into rentals (user_id, book_id, rental_date, due_date, returned)
+                select u.id, b.id, :rentalDate, :dueDate, false
+                from claimed_user u cross join claimed_book b
+                returning id, book_id)
+            select i.id, b.title, b.author from inserted i join claimed_book b on b.id = i.book_id
+            """, nativeQuery = true)
+    List<Object[]> reserve(@Param("userId") Long userId,
+                           @Param("bookId") Long bookId,
+                           @Param("maxActive") int maxActive,
+                           @Param("rentalDate") LocalDate rentalDate,
+                           @Param("dueDate") LocalDate dueDate);
 }
@@ -2,8 +2,41 @@ package com.example.booklend.repository;
 
 import com.example.booklend.model.User;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    // Written out so it matches the lower(email) index
+    @Query("select count(u) > 0 from User u where lower(u.email) = lower(:email)")
+    boolean existsByEmailIgnoreCase(@Param("email") String email);
+
+    @Modifying
+    @Query("update User u set u.activeRentalCount = u.activeRentalCount - 1 where u.id = :id and u.activeRentalCount > 0")
+    int decrementActiveRentals(@Param("id") Long id);
+
+    // Used before a book's rentals are deleted along with it
+    @Modifying
+    @Query(value = """
+            update users u set active_rental_count = greatest(u.active_rental_count - r.active, 0)
+            from (select user_id, count(*) as active from rentals
+                  where book_id = :bookId and returned = false group by user_id) r
+            where u.id = r.user_id
+            """, nativeQuery = true)
+    int releaseActiveRentalsOfBook(@Param("bookId") Long bookId);
+
+    /**
+     * Recounts active rentals for users whose counter has drifted.
+     *
+     * @return number of users repaired
+     */
+    @Modifying
+    @Query(value = """
+            update users u set active_rental_count = c.active
+            from (select us.id, (select count(*) from rentals r where r.user_id = us.id and r.returned = false) as active
+                  from users us) c
+            where c.id = u.id and u.active_rental_count <> c.active
+            """, nativeQuery = true)
+    int reconcileActiveRentalCounts();
 }
@@ -0,0 +1,279 @@
+package com.example.booklend.search;
+
+import com.example.booklend.dto.BookSearchHit;
+import com.example.booklend.event.CatalogChangedEvent;
+import com.example.booklend.model.Book;
+import com.example.booklend.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over title, author, genre and summary.
+ * <p>
+ * Terms are case- and accent-folded. Every query term is matched exactly, as a prefix of an
+ * indexed term, or (when neither matches) within a small edit distance of an indexed term's
+ * prefix, so "tolk", "tolkien" and "tolkein" all find Tolkien. All query terms must match;
+ * hits are ranked by the summed field weight of their best match per term.
+ * <p>
+ * A short leading term can expand to a large slice of the vocabulary, so it is limited to the
+ * {@value #MAX_EXPANSIONS} expansions found in the most books. Later terms only score books
+ * that matched every earlier term, which bounds their work instead, so they take all expansions.
+ */
+@Component
+public class BookSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    static final float TITLE_WEIGHT = 3.0f;
+    static final float AUTHOR_WEIGHT = 2.0f;
+    static final float GENRE_WEIGHT = 1.5f;
+    static final float SUMMARY_WEIGHT = 0.5f;
+
+    private static final float EXACT_MATCH = 1.0f;
+    private static final float PREFIX_MATCH = 0.7f;
+    private static final float FUZZY_MATCH = 0.4f;
+    // Bounds the work a one-letter leading term can cause on a large vocabulary
+    static final int MAX_EXPANSIONS = 500;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // term -> (book id -> best field weight of that term in the book)
+    private TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private Map<Long, IndexedBook> books = new HashMap<>();
+
+    private record IndexedBook(Long id, String title, String author, String genre, Set<String> terms) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        TreeMap<String, Map<Long, Float>> newPostings = new TreeMap<>();
+        Map<Long, IndexedBook> newBooks = new HashMap<>();
+        List<Book> all = bookRepository.findAll();
+        for (Book book : all) {
+            addTo(newPostings, newBooks, book);
+        }
+        lock.writeLock().lock();
+        try {
+            postings = newPostings;
+            books = newBooks;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Search index built: {} books, {} terms", newBooks.size(), newPostings.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> index(event.book());
+            case DELETED -> remove(event.bookId());
+            case IMPORTED -> rebuild();
+        }
+    }
+
+    public void index(Book book) {
+        lock.writeLock().lock();
+        try {
+            removeFrom(postings, books, book.getId());
+            addTo(postings, books, book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            removeFrom(postings, books, bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return books.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<BookSearchHit> search(String query, int limit) {
+        List<String> terms = TextNormalizer.tokenize(query);
+        if (terms.isEmpty() || limit <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Float> scores = null;
+            for (String term : terms) {
+                Map<Long, Float> termScores = match(term, scores);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // AND semantics: keep only books that matched every term so far
+                    Map<Long, Float> merged = new HashMap<>();
+                    for (Map.Entry<Long, Float> e : scores.entrySet()) {
+                        Float s = termScores.get(e.getKey());
+                        if (s != null) merged.put(e.getKey(), e.getValue() + s);
+                    }
+                    scores = merged;
+                }
+                if (scores.isEmpty()) return List.of();
+            }
+
+            List<BookSearchHit> hits = new ArrayList<>(scores.size());
+            for (Map.Entry<Long, Float> e : scores.entrySet()) {
+                IndexedBook b = books.get(e.getKey());
+                hits.add(new BookSearchHit(b.id(), b.title(), b.author(), b.genre(), e.getValue()));
+            }
+            hits.sort(Comparator.comparingDouble(BookSearchHit::getScore).reversed()
+                    .thenComparing(BookSearchHit::getTitle, Comparator.nullsLast(String::compareTo))
+                    .thenComparing(BookSearchHit::getId));
+            return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Must be called with the read lock held.
+     *
+     * @param candidates books that matched the earlier terms of the query, or null for the first term
+     */
+    private Map<Long, Float> match(String term, Map<Long, Float> candidates) {
+        Map<Long, Float> result = new HashMap<>();
+        for (Map.Entry<String, Map<Long, Float>> e : expansions(prefixRange(term).entrySet(), term, candidates)) {
+            float quality = e.getKey().length() == term.length() ? EXACT_MATCH : PREFIX_MATCH;
+            accumulate(result, e.getValue(), quality, candidates);
+        }
+        if (!result.isEmpty()) return result;
+
+        int maxEdits = term.length() >= 8 ? 2 : term.length() >= 4 ? 1 : 0;
+        if (maxEdits == 0) return result;
+        // Typos rarely hit the first letter, so only that bucket of the vocabulary is scanned
+        List<Map.Entry<String, Map<Long, Float>>> fuzzy = new ArrayList<>();
+        for (Map.Entry<String, Map<Long, Float>> e : prefixRange(term.substring(0, 1)).entrySet()) {
+            if (prefixDistance(term, e.getKey(), maxEdits) <= maxEdits) fuzzy.add(e);
+        }
+        for (Map.Entry<String, Map<Long, Float>> e : expansions(fuzzy, term, candidates)) {
+            accumulate(result, e.getValue(), FUZZY_MATCH, candidates);
+        }
+        return result;
+    }
+
+    // All expansions when later terms filter by candidates; otherwise the exact term and then the
+    // terms found in the most books, so a cut never drops the common words in favour of rare ones
+    private static Collection<Map.Entry<String, Map<Long, Float>>> expansions(
+            Collection<Map.Entry<String, Map<Long, Float>>> all, String term, Map<Long, Float> candidates) {
+        if (candidates != null || all.size() <= MAX_EXPANSIONS) return all;
+        return all.stream()
+                .sorted(Comparator.<Map.Entry<String, Map<Long, Float>>, Boolean>comparing(e -> !e.getKey().equals(term))
+                        .thenComparing(e -> e.getValue().size(), Comparator.reverseOrder())
+                        .thenComparing(Map.Entry::getKey))
+                .limit(MAX_EXPANSIONS)
+                .toList();
+    }
+
+    private NavigableMap<String, Map<Long, Float>> prefixRange(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static void accumulate(Map<Long, Float> result, Map<Long, Float> docs, float quality, Map<Long, Float> candidates) {
+        if (candidates != null && candidates.size() < docs.size()) {
+            for (Long id : candidates.keySet()) {
+                Float weight = docs.get(id);
+                if (weight != null) result.merge(id, weight * quality, Math::max);
+            }
+            return;
+        }
+        for (Map.Entry<Long, Float> d : docs.entrySet()) {
+            if (candidates == null || candidates.containsKey(d.getKey())) {
+                result.merge(d.getKey(), d.getValue() * quality, Math::max);
+            }
+        }
+    }
+
+    /**
+     * Smallest edit distance (insertions, deletions, substitutions and adjacent transpositions)
+     * between {@code query} and any prefix of {@code candidate}, capped at {@code max + 1} so
+     * hopeless candidates are abandoned early.
+     */
+    static int prefixDistance(String query, String candidate, int max) {
+        int n = query.length();
+        int m = Math.min(candidate.length(), n + max);
+        int[] before = new int[n + 1];
+        int[] prev = new int[n + 1];
+        int[] curr = new int[n + 1];
+        for (int i = 0; i <= n; i++) prev[i] = i;
+        int best = prev[n];
+        for (int j = 1; j <= m; j++) {
+            curr[0] = j;
+            int rowMin = curr[0];
+            for (int i = 1; i <= n; i++) {
+                int cost = query.charAt(i - 1) == candidate.charAt(j - 1) ? 0 : 1;
+                curr[i] = Math.min(Math.min(curr[i - 1] + 1, prev[i] + 1), prev[i - 1] + cost);
+                if (i > 1 && j > 1 && query.charAt(i - 1) == candidate.charAt(j - 2)
+                        && query.charAt(i - 2) == candidate.charAt(j - 1)) {
+                    curr[i] = Math.min(curr[i], before[i - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, curr[i]);
+            }
+            best = Math.min(best, curr[n]);
+            if (rowMin > max) break;
+            int[] tmp = before;
+            before = prev;
+            prev = curr;
+            curr = tmp;
+        }
+        return Math.min(best, max + 1);
+    }
+
+    private static void addTo(TreeMap<String, Map<Long, Float>> postings, Map<Long, IndexedBook> books, Book book) {
+        if (book == null || book.getId() == null) return;
+        Map<String, Float> termWeights = new HashMap<>();
+        collect(termWeights, book.getTitle(), TITLE_WEIGHT);
+        collect(termWeights, book.getAuthor(), AUTHOR_WEIGHT);
+        collect(termWeights, book.getGenre(), GENRE_WEIGHT);
+        collect(termWeights, book.getSummary(), SUMMARY_WEIGHT);
+        for (Map.Entry<String, Float> e : termWeights.entrySet()) {
+            postings.computeIfAbsent(e.getKey(), k -> new HashMap<>()).put(book.getId(), e.getValue());
+        }
+        books.put(book.getId(), new IndexedBook(book.getId(), book.getTitle(), book.getAuthor(), book.getGenre(),
+                new HashSet<>(termWeights.keySet())));
+    }
+
+    private static void collect(Map<String, Float> termWeights, String text, float weight) {
+        for (String token : TextNormalizer.tokenize(text)) {
+            termWeights.merge(token, weight, Math::max);
+        }
+    }
+
+    private static void removeFrom(TreeMap<String, Map<Long, Float>> postings, Map<Long, IndexedBook> books, Long bookId) {
+        IndexedBook existing = books.remove(bookId);
+        if (existing == null) return;
+        for (String term : existing.terms()) {
+            Map<Long, Float> docs = postings.get(term);
+            if (docs == null) continue;
+            docs.remove(bookId);
+            if (docs.isEmpty()) postings.remove(term);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.booklend.search;
+
+import com.example.booklend.dto.BookSuggestion;
+import com.example.booklend.event.CatalogChangedEvent;
+import com.example.booklend.event.RentalChangedEvent;
+import com.example.booklend.model.Book;
+import com.example.booklend.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typeahead over book titles and authors, weighted by how many copies are currently borrowed.
+ * Built once at startup and kept current from catalog and rental events.
+ */
+@Component
+public class BookSuggester {
+    private static final Logger logger = LoggerFactory.getLogger(BookSuggester.class);
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private SuggestionTrie trie = new SuggestionTrie();
+    // What each book contributed to the trie, so edits and deletes can be undone exactly
+    private Map<Long, Contribution> contributions = new HashMap<>();
+
+    private record Contribution(String title, String author, long popularity) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        SuggestionTrie newTrie = new SuggestionTrie();
+        Map<Long, Contribution> newContributions = new HashMap<>();
+        for (Book book : bookRepository.findAllWithBorrowedCount()) {
+            long popularity = book.getBorrowedCount() == null ? 0 : book.getBorrowedCount();
+            Contribution c = new Contribution(book.getTitle(), book.getAuthor(), popularity);
+            apply(newTrie, c, 1);
+            newContributions.put(book.getId(), c);
+        }
+        lock.writeLock().lock();
+        try {
+            trie = newTrie;
+            contributions = newContributions;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Suggester built: {} suggestions from {} books", newTrie.size(), newContributions.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.type() == CatalogChangedEvent.Type.IMPORTED) {
+            rebuild();
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Contribution previous = contributions.remove(event.bookId());
+            if (previous != null) apply(trie, previous, -1);
+            if (event.type() != CatalogChangedEvent.Type.DELETED) {
+                Book book = event.book();
+                long popularity = previous == null ? 0 : previous.popularity();
+                Contribution c = new Contribution(book.getTitle(), book.getAuthor(), popularity);
+                apply(trie, c, 1);
+                contributions.put(book.getId(), c);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRentalChanged(RentalChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            Contribution c = contributions.get(event.bookId());
+            if (c == null) return;
+            long popularity = Math.max(0, c.popularity() + event.activeDelta());
+            long delta = popularity - c.popularity();
+            trie.update(c.title(), BookSuggestion.Type.TITLE, 0, delta);
+            trie.update(c.author(), BookSuggestion.Type.AUTHOR, 0, delta);
+            contributions.put(event.bookId(), new Contribution(c.title(), c.author(), popularity));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<BookSuggestion> suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return trie.topK(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void apply(SuggestionTrie trie, Contribution c, int sign) {
+        trie.update(c.title(), BookSuggestion.Type.TITLE, sign, sign * c.popularity());
+        trie.update(c.author(), BookSuggestion.Type.AUTHOR, sign, sign * c.popularity());
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.booklend.search;
+
+import com.example.booklend.dto.BookSuggestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Weighted radix trie for typeahead. Chains of single-child nodes are collapsed into one edge
+ * holding the label slice, so a title costs a node per branching point rather than one per
+ * character. Children are kept in parallel sorted arrays rather than maps, and every node caches
+ * the highest weight found in its subtree, so a top-k lookup is a best-first walk that only
+ * visits the branches able to contribute a result.
+ * <p>
+ * Not thread-safe; {@link BookSuggester} guards it.
+ */
+final class SuggestionTrie {
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    // Heaviest first; on a tie finished entries before subtrees, then entries by text
+    private static final Comparator<Object> QUEUE_ORDER = Comparator
+            .comparingLong(SuggestionTrie::weightOf).reversed()
+            .thenComparing(o -> o instanceof Node)
+            .thenComparing(o -> o instanceof Entry e ? e.text : "");
+
+    static final class Entry {
+        final String text;
+        final BookSuggestion.Type type;
+        long weight;
+        int refs;
+
+        Entry(String text, BookSuggestion.Type type) {
+            this.text = text;
+            this.type = type;
+        }
+    }
+
+    private static final class Node {
+        // Label of the edge from the parent; empty only for the root
+        char[] edge;
+        // First character of each child's edge, sorted, parallel to children
+        char[] labels = NO_LABELS;
+        Node[] children = NO_CHILDREN;
+        Entry[] entries;
+        long maxWeight;
+
+        Node(char[] edge) {
+            this.edge = edge;
+        }
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        // Length of the common prefix of this node's edge and key[from..]
+        int matchEdge(String key, int from) {
+            int n = Math.min(edge.length, key.length() - from);
+            int i = 0;
+            while (i < n && edge[i] == key.charAt(from + i)) i++;
+            return i;
+        }
+
+        Node addChild(Node child) {
+            int at = -Arrays.binarySearch(labels, child.edge[0]) - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            newLabels[at] = child.edge[0];
+            newChildren[at] = child;
+            System.arraycopy(labels, at, newLabels, at + 1, labels.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+
+        /**
+         * Splits the edge to {@code child} after {@code at} characters and returns the new node
+         * at the split point, which takes the child's place.
+         */
+        Node splitChild(Node child, int at) {
+            Node head = new Node(Arrays.copyOf(child.edge, at));
+            child.edge = Arrays.copyOfRange(child.edge, at, child.edge.length);
+            head.labels = new char[]{child.edge[0]};
+            head.children = new Node[]{child};
+            head.maxWeight = child.maxWeight;
+            children[Arrays.binarySearch(labels, head.edge[0])] = head;
+            return head;
+        }
+
+        // Folds the only child back into this node once this node carries no entries of its own
+        void absorbOnlyChild() {
+            Node child = children[0];
+            char[] joined = Arrays.copyOf(edge, edge.length + child.edge.length);
+            System.arraycopy(child.edge, 0, joined, edge.length, child.edge.length);
+            edge = joined;
+            labels = child.labels;
+            children = child.children;
+            entries = child.entries;
+        }
+
+        void removeChild(Node child) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == child) {
+                    char[] newLabels = new char[labels.length - 1];
+                    Node[] newChildren = new Node[children.length - 1];
+                    System.arraycopy(labels, 0, newLabels, 0, i);
+                    System.arraycopy(children, 0, newChildren, 0, i);
+                    System.arraycopy(labels, i + 1, newLabels, i, labels.length - i - 1);
+                    System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+                    labels = newLabels.length == 0 ? NO_LABELS : newLabels;
+                    children = newChildren.length == 0 ? NO_CHILDREN : newChildren;
+                    return;
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return children.length == 0 && entries == null;
+        }
+
+        void recomputeMax() {
+            long max = 0;
+            if (entries != null) for (Entry e : entries) max = Math.max(max, e.weight);
+            for (Node c : children) max = Math.max(max, c.maxWeight);
+            maxWeight = max;
+        }
+    }
+
+    private final Node root = new Node(NO_LABELS);
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    // Number of trie nodes, root included
+    int nodeCount() {
+        int count = 0;
+        List<Node> pending = new ArrayList<>(List.of(root));
+        while (!pending.isEmpty()) {
+            Node n = pending.remove(pending.size() - 1);
+            count++;
+            pending.addAll(Arrays.asList(n.children));
+        }
+        return count;
+    }
+
+    /**
+     * Adds {@code refDelta} references and {@code weightDelta} weight to the suggestion for
+     * {@code text}. The suggestion is created on first reference and dropped when its
+     * references reach zero.
+     */
+    void update(String text, BookSuggestion.Type type, int refDelta, long weightDelta) {
+        String key = TextNormalizer.normalize(text);
+        if (key.isEmpty()) return;
+
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node next = node.child(key.charAt(i));
+            if (next == null) {
+                if (refDelta <= 0) return;
+                next = node.addChild(new Node(key.substring(i).toCharArray()));
+            }
+            int matched = next.matchEdge(key, i);
+            if (matched < next.edge.length) {
+                // The key leaves or ends inside this edge: only a new suggestion needs a node there
+                if (refDelta <= 0) return;
+                next = node.splitChild(next, matched);
+            }
+            path.add(next);
+            node = next;
+            i += matched;
+        }
+
+        Entry entry = findEntry(node, type);
+        if (entry == null) {
+            if (refDelta <= 0) return;
+            entry = new Entry(text, type);
+            node.entries = node.entries == null ? new Entry[]{entry} : append(node.entries, entry);
+            size++;
+        }
+        entry.refs += refDelta;
+        entry.weight = Math.max(0, entry.weight + weightDelta);
+        if (entry.refs <= 0) {
+            removeEntry(node, entry);
+            size--;
+        }
+
+        for (int p = path.size() - 1; p >= 0; p--) {
+            Node n = path.get(p);
+            if (p > 0 && n.isEmpty()) {
+                path.get(p - 1).removeChild(n);
+                continue;
+            }
+            if (p > 0 && n.entries == null && n.children.length == 1) n.absorbOnlyChild();
+            n.recomputeMax();
+        }
+    }
+
+    /**
+     * Returns up to {@code k} suggestions starting with {@code prefix}, heaviest first.
+     */
+    List<BookSuggestion> topK(String prefix, int k) {
+        String key = TextNormalizer.normalize(prefix);
+        Node node = root;
+        int i = 0;
+        while (i < key.length() && node != null) {
+            Node next = node.child(key.charAt(i));
+            if (next == null) {
+                node = null;
+                break;
+            }
+            int matched = next.matchEdge(key, i);
+            // A prefix may end inside an edge; everything below it still matches
+            if (matched < next.edge.length && i + matched < key.length()) {
+                node = null;
+                break;
+            }
+            node = next;
+            i += matched;
+        }
+        List<BookSuggestion> result = new ArrayList<>(k);
+        if (node == null || k <= 0) return result;
+
+        // Nodes are queued by their subtree maximum and entries by their own weight; an entry
+        // popped from the queue therefore outweighs everything still waiting. On equal weight
+        // entries come first, so ties are emitted without expanding more of the trie.
+        PriorityQueue<Object> queue = new PriorityQueue<>(QUEUE_ORDER);
+        queue.add(node);
+        while (!queue.isEmpty() && result.size() < k) {
+            Object next = queue.poll();
+            if (next instanceof Entry e) {
+                result.add(new BookSuggestion(e.text, e.type, e.weight));
+            } else {
+                Node n = (Node) next;
+                if (n.entries != null) queue.addAll(Arrays.asList(n.entries));
+                queue.addAll(Arrays.asList(n.children));
+            }
+        }
+        return result;
+    }
+
+    private static long weightOf(Object o) {
+        return o instanceof Entry e ? e.weight : ((Node) o).maxWeight;
+    }
+
+    private static Entry findEntry(Node node, BookSuggestion.Type type) {
+        if (node.entries == null) return null;
+        for (Entry e : node.entries) if (e.type == type) return e;
+        return null;
+    }
+
+    private static Entry[] append(Entry[] entries, Entry entry) {
+        Entry[] grown = Arrays.copyOf(entries, entries.length + 1);
+        grown[entries.length] = entry;
+        return grown;
+    }
+
+    private static void removeEntry(Node node, Entry entry) {
+        if (node.entries.length == 1) {
+            node.entries = null;
+            return;
+        }
+        node.entries = Arrays.stream(node.entries).filter(e -> e != entry).toArray(Entry[]::new);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.booklend.security;
+
+import com.example.booklend.model.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA listener on {@link User} that drops the cached principal whenever the row is updated
+ * (role, password, profile) or deleted. Hibernate obtains it through Spring's bean container,
+ * so the cache is injected.
+ */
+public class PrincipalCacheInvalidator {
+
+    private final PrincipalCache principalCache;
+
+    public PrincipalCacheInvalidator(PrincipalCache principalCache) {
+        this.principalCache = principalCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(User user) {
+        String email = user.getEmail();
+        principalCache.invalidate(email);
+        // A request racing this transaction could re-cache the old row before commit, so evict again afterwards
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    principalCache.invalidate(email);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.booklend.security;
+
+import java.util.Date;
+
+/**
+ * Claims of a JWT whose signature and expiry have already been checked by {@link JwtUtil#verify}.
+ */
+public record VerifiedToken(String subject, String role, Date issuedAt, Date expiration) {
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.booklend.security;
+
+import com.example.booklend.cache.CacheInvalidationBus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Front for {@link JwtUtil#verify} that remembers tokens it has already verified, so a client
+ * sending the same bearer token on every request pays a SHA-256 digest and a map lookup instead
+ * of an HMAC verification. Entries are keyed by the token digest (the raw token is never kept)
+ * and expire with the token itself.
+ * <p>
+ * Logged-out tokens are recorded in a revocation set until they would have expired anyway;
+ * revoked tokens are rejected whether or not caching is enabled. Revocations are published on the
+ * {@link CacheInvalidationBus} as the token digest and expiry, so a token logged out on one node
+ * is rejected by every node.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    static final String REVOCATIONS = "revoked-tokens";
+
+    private final JwtUtil jwtUtil;
+    private final CacheInvalidationBus invalidationBus;
+    private final boolean enabled;
+    private final Cache<String, VerifiedToken> verified;
+    // token digest -> token expiry
+    private final Cache<String, Date> revoked;
+
+    public VerifiedTokenCache(JwtUtil jwtUtil,
+                              CacheInvalidationBus invalidationBus,
+                              MeterRegistry meterRegistry,
+                              @Value("${security.token-cache.enabled:true}") boolean enabled,
+                              @Value("${security.token-cache.max-size:10000}") long maxSize) {
+        this.jwtUtil = jwtUtil;
+        this.invalidationBus = invalidationBus;
+        this.enabled = enabled;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(untilExpiry(VerifiedToken::expiration))
+                .recordStats()
+                .build();
+        // Not size-bounded: dropping a revocation early would let a logged-out token back in
+        this.revoked = Caffeine.newBuilder()
+                .expireAfter(untilExpiry(Function.identity()))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "verified-tokens");
+        invalidationBus.subscribe(REVOCATIONS, message -> {
+            // "<digest> <expiry in epoch millis>", see revoke
+            String[] parts = message.toString().split(" ");
+            revoked.put(parts[0], new Date(Long.parseLong(parts[1])));
+            verified.invalidate(parts[0]);
+        });
+    }
+
+    /**
+     * @throws JwtException if the token is invalid, expired or has been revoked
+     */
+    public VerifiedToken verify(String token) {
+        String digest = digest(token);
+        if (revoked.getIfPresent(digest) != null) throw new JwtException("Token has been revoked");
+        if (!enabled) return jwtUtil.verify(token);
+
+        VerifiedToken cached = verified.getIfPresent(digest);
+        if (cached != null && !cached.isExpired()) return cached;
+        VerifiedToken fresh = jwtUtil.verify(token);
+        verified.put(digest, fresh);
+        return fresh;
+    }
+
+    /**
+     * Rejects the token on every node from now until it expires. Tokens that don't verify are
+     * ignored, since they would be rejected anyway.
+     */
+    public void revoke(String token) {
+        VerifiedToken claims;
+        try {
+            claims = jwtUtil.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return;
+        }
+        long expiry = claims.expiration() == null ? Long.MAX_VALUE : claims.expiration().getTime();
+        invalidationBus.publish(REVOCATIONS, digest(token) + " " + expiry);
+    }
+
+    private static <V> Expiry<String, V> untilExpiry(Function<V, Date> expiration) {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String key, V value, long currentTime) {
+                Date expiresAt = expiration.apply(value);
+                if (expiresAt == null) return Long.MAX_VALUE;
+                long remainingMs = expiresAt.getTime() - new Date().getTime();
+                return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMs, 0));
+            }
+
+            @Override
+            public long expireAfterUpdate(String key, V value, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, value, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(String key, V value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
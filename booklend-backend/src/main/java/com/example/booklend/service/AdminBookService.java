@@ -1,16 +1,22 @@
 package com.example.booklend.service;
 
 import com.example.booklend.dto.BookCreateDto;
+import com.example.booklend.event.CatalogChangedEvent;
+import com.example.booklend.event.CoverReleasedEvent;
 import com.example.booklend.model.Book;
+import com.example.booklend.repository.ArchivedRentalRepository;
 import com.example.booklend.repository.BookRepository;
 import com.example.booklend.repository.RentalRepository;
+import com.example.booklend.repository.UserRepository;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Optional;
 
 @Service
@@ -21,10 +27,26 @@ public class AdminBookService {
 	@Autowired
 	private RentalRepository rentalRepository;
 
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private ArchivedRentalRepository archivedRentalRepository;
+
 	@Autowired
 	private FileStorageService fileStorageService;
 
+	@Autowired
+	private ImageVariantService imageVariantService;
+
+	@Autowired
+	private CoverUploadValidator coverUploadValidator;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
 	public ResponseEntity<?> create(BookCreateDto bookDto, MultipartFile image) {
+		FileStorageService.StagedFile staged = null;
 		try {
 			Book book = new Book();
 			book.setTitle(bookDto.getTitle());
@@ -34,38 +56,84 @@ public class AdminBookService {
 			book.setStockCount(bookDto.getStockCount());
 
 			if (image != null && !image.isEmpty()) {
-				if (image.getContentType() == null || !image.getContentType().startsWith("image/")) {
-					return ResponseEntity.badRequest().body("File is not an image");
-				}
-				String filename = fileStorageService.store(image);
-				book.setImageFilename(filename);
+				// Moved into place only once the book referencing it is saved, see StagedFile
+				staged = coverUploadValidator.stage(image.getInputStream(), image.getSize());
+				book.setImageFilename(staged.filename());
 			}
 
 			Book saved = bookRepository.save(book);
+			if (staged != null) {
+				fileStorageService.commit(staged);
+				imageVariantService.generateAsync(staged.filename());
+			}
+			eventPublisher.publishEvent(CatalogChangedEvent.created(saved));
 			return ResponseEntity.status(201).body(saved);
+		} catch (RejectedUploadException e) {
+			return ResponseEntity.status(e.getStatus()).body(e.getMessage());
 		} catch (IOException e) {
 			return ResponseEntity.status(500).body("Failed to store image");
+		} finally {
+			fileStorageService.discard(staged);
 		}
 	}
 
-	public ResponseEntity<?> update(Long id, Book update) {
+	/**
+	 * Replaces a book's cover with the raw request body, streamed straight to storage without
+	 * multipart buffering.
+	 *
+	 * @param contentLength declared body length, or -1 when the body is chunked
+	 */
+	public ResponseEntity<?> replaceCover(Long id, InputStream body, long contentLength) {
 		Optional<Book> existing = bookRepository.findById(id);
 		if (existing.isEmpty()) return ResponseEntity.notFound().build();
-		Book b = existing.get();
-		b.setTitle(update.getTitle());
-		b.setAuthor(update.getAuthor());
-		b.setGenre(update.getGenre());
-		b.setSummary(update.getSummary());
-		b.setStockCount(update.getStockCount());
-		Book saved = bookRepository.save(b);
-		return ResponseEntity.ok(saved);
+		String previous = existing.get().getImageFilename();
+		FileStorageService.StagedFile staged = null;
+		try {
+			staged = coverUploadValidator.stage(body, contentLength);
+			// Streaming the upload can take a while; writing back the entity loaded above would
+			// revert any borrow or return that landed meanwhile, so only the cover column is set
+			if (bookRepository.updateImageFilename(id, staged.filename()) == 0) {
+				return ResponseEntity.notFound().build();
+			}
+			fileStorageService.commit(staged);
+			imageVariantService.generateAsync(staged.filename());
+			Optional<Book> updated = bookRepository.findById(id);
+			updated.ifPresent(b -> eventPublisher.publishEvent(CatalogChangedEvent.updated(b)));
+			if (previous != null && !previous.equals(staged.filename())) {
+				eventPublisher.publishEvent(new CoverReleasedEvent(previous));
+			}
+			return updated.<ResponseEntity<?>>map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+		} catch (RejectedUploadException e) {
+			return ResponseEntity.status(e.getStatus()).body(e.getMessage());
+		} catch (IOException e) {
+			return ResponseEntity.status(500).body("Failed to store image");
+		} finally {
+			fileStorageService.discard(staged);
+		}
+	}
+
+	public ResponseEntity<?> update(Long id, Book update) {
+		int updated = bookRepository.updateDetails(id, update.getTitle(), update.getAuthor(), update.getGenre(),
+				update.getSummary(), update.getStockCount());
+		if (updated == 0) return ResponseEntity.notFound().build();
+		Optional<Book> saved = bookRepository.findById(id);
+		saved.ifPresent(b -> eventPublisher.publishEvent(CatalogChangedEvent.updated(b)));
+		return saved.<ResponseEntity<?>>map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
 	}
 
 	@Transactional
 	public ResponseEntity<?> delete(Long id) {
-		if (!bookRepository.existsById(id)) return ResponseEntity.notFound().build();
+		Optional<Book> existing = bookRepository.findById(id);
+		if (existing.isEmpty()) return ResponseEntity.notFound().build();
+		// Active rentals disappear with the book, so their holders get those slots back
+		userRepository.releaseActiveRentalsOfBook(id);
 		rentalRepository.deleteByBookId(id);
+		archivedRentalRepository.deleteByBookId(id);
 		bookRepository.deleteById(id);
+		eventPublisher.publishEvent(CatalogChangedEvent.deleted(id));
+		if (existing.get().getImageFilename() != null) {
+			eventPublisher.publishEvent(new CoverReleasedEvent(existing.get().getImageFilename()));
+		}
 		return ResponseEntity.ok().build();
 	}
 }
@@ -5,18 +5,24 @@ import com.example.booklend.dto.RegisterRequest;
 import com.example.booklend.model.Role;
 import com.example.booklend.model.User;
 import com.example.booklend.repository.UserRepository;
-import com.example.booklend.security.CustomUserDetailsService;
 import com.example.booklend.security.JwtUtil;
+import com.example.booklend.security.PasswordHashingExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 public class AuthService {
@@ -29,10 +35,12 @@ public class AuthService {
     @Autowired
     private JwtUtil jwtUtil;
     @Autowired
-    private CustomUserDetailsService userDetailsService;
+    private PasswordHashingExecutor passwordHashingExecutor;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     public ResponseEntity<?> register(RegisterRequest req) {
-        if (userRepository.findByEmail(req.getEmail()).isPresent()) {
+        if (userRepository.existsByEmailIgnoreCase(req.getEmail())) {
             return ResponseEntity.badRequest().body("Email already in use");
         }
         User user = new User();
@@ -45,18 +53,48 @@ public class AuthService {
         return ResponseEntity.ok(user);
     }
 
-    public ResponseEntity<?> authenticate(LoginRequest req) {
+    /**
+     * Runs the BCrypt check on the bounded password-hashing pool. When that pool is saturated
+     * the login is refused straight away with 429 instead of queueing behind the spike.
+     */
+    public CompletableFuture<ResponseEntity<?>> authenticate(LoginRequest req) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<ResponseEntity<?>> result;
         try {
-            authenticationManager.authenticate(
+            result = passwordHashingExecutor.submit(() -> login(req));
+        } catch (RejectedExecutionException e) {
+            result = CompletableFuture.completedFuture(ResponseEntity.status(429)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Too many login attempts in progress. Please retry shortly."));
+        }
+        return result.whenComplete((response, error) -> sample.stop(loginTimer(response, error)));
+    }
+
+    private ResponseEntity<?> login(LoginRequest req) {
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(req.getEmail(), req.getPassword()));
         } catch (AuthenticationException ex) {
             return ResponseEntity.status(401).body("Invalid credentials");
         }
-        var userDetails = userDetailsService.loadUserByUsername(req.getEmail());
-        String token = jwtUtil.generateToken(userDetails);
+        // The authenticated principal is the user that was just loaded; no second lookup needed
+        String token = jwtUtil.generateToken((UserDetails) authentication.getPrincipal());
         return ResponseEntity.ok(Map.of("token", token));
     }
 
+    private Timer loginTimer(ResponseEntity<?> response, Throwable error) {
+        String outcome;
+        if (error != null) outcome = "error";
+        else if (response.getStatusCode().value() == 429) outcome = "rejected";
+        else if (response.getStatusCode().is2xxSuccessful()) outcome = "success";
+        else outcome = "failure";
+        return Timer.builder("auth.login")
+                .description("Login latency including time queued for the password-hashing pool")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
     public ResponseEntity<?> getCurrentUser(UserDetails userDetails) {
         if (userDetails == null) {
             return ResponseEntity.status(401).body("Unauthorized");
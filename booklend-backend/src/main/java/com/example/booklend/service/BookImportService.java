@@ -0,0 +1,256 @@
+package com.example.booklend.service;
+
+import com.example.booklend.dto.BookCreateDto;
+import com.example.booklend.dto.ImportReport;
+import com.example.booklend.event.CatalogChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bulk catalog import from CSV (header row naming title, author, genre, summary, stockCount) or
+ * NDJSON (one {@link BookCreateDto} per line). The upload is parsed as it streams in; valid rows
+ * are inserted with plain JDBC batches, each batch in its own transaction, so memory use depends
+ * on the batch size, not the file size. Invalid rows are skipped and listed in the report, as are
+ * records longer than {@code books.import.max-record-length} characters, which are never buffered whole.
+ * <p>
+ * The inserts bypass Hibernate: with IDENTITY ids it would insert row by row to read each id
+ * back, while a JDBC batch needs no ids and the driver rewrites it into multi-row inserts
+ * ({@code reWriteBatchedInserts}).
+ */
+@Service
+public class BookImportService {
+    private static final String INSERT =
+            "insert into books (title, author, genre, summary, stock_count, borrowed_count) values (?, ?, ?, ?, ?, 0)";
+    private static final int MAX_LENGTH = 255;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JsonMapper jsonMapper;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${books.import.batch-size:1000}")
+    private int batchSize;
+    @Value("${books.import.max-errors:1000}")
+    private int maxErrors;
+    @Value("${books.import.max-record-length:65536}")
+    private int maxRecordLength;
+
+    private record Row(long line, BookCreateDto book) {}
+
+    // State of one import
+    private final class Run {
+        final List<Row> batch = new ArrayList<>(batchSize);
+        final List<ImportReport.RowError> errors = new ArrayList<>();
+        long received;
+        long imported;
+        long failed;
+
+        void accept(long line, BookCreateDto book) {
+            received++;
+            String problem = validate(book);
+            if (problem != null) {
+                reject(line, problem);
+                return;
+            }
+            batch.add(new Row(line, book));
+            if (batch.size() >= batchSize) flush(this);
+        }
+
+        void reject(long line, String message) {
+            failed++;
+            if (errors.size() < maxErrors) errors.add(new ImportReport.RowError(line, message));
+        }
+
+        ImportReport report() {
+            return new ImportReport(received, imported, failed, errors, failed > errors.size());
+        }
+    }
+
+    public ResponseEntity<?> importBooks(InputStream body, String contentType) {
+        String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        boolean csv = type.startsWith("text/csv");
+        if (!csv && !type.startsWith("application/x-ndjson")) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).body("Use text/csv or application/x-ndjson");
+        }
+
+        Run run = new Run();
+        try (Reader in = new InputStreamReader(body, StandardCharsets.UTF_8)) {
+            BoundedLineReader reader = new BoundedLineReader(in, maxRecordLength);
+            String problem = csv ? readCsv(reader, run) : readNdjson(reader, run);
+            if (problem != null) return ResponseEntity.badRequest().body(problem);
+            flush(run);
+        } catch (IOException e) {
+            // Rows before the break are already committed; say so rather than a bare error
+            flush(run);
+            run.reject(run.received + 1, "Upload interrupted: " + e.getMessage());
+            return ResponseEntity.badRequest().body(run.report());
+        } finally {
+            if (run.imported > 0) eventPublisher.publishEvent(CatalogChangedEvent.imported());
+        }
+        return ResponseEntity.ok(run.report());
+    }
+
+    // Returns a message when the file as a whole is unusable
+    private String readCsv(BoundedLineReader reader, Run run) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header;
+        try {
+            header = csv.next();
+        } catch (BoundedLineReader.TooLongException e) {
+            return "Header: " + e.getMessage();
+        }
+        if (header == null) return "File is empty";
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT).replace("_", ""), i);
+        }
+        for (String required : List.of("title", "author", "stockcount")) {
+            if (!columns.containsKey(required)) return "Header must name title, author and stockCount columns";
+        }
+
+        while (true) {
+            List<String> fields;
+            try {
+                fields = csv.next();
+            } catch (BoundedLineReader.TooLongException e) {
+                run.received++;
+                run.reject(csv.recordLine(), e.getMessage());
+                continue;
+            } catch (IllegalArgumentException e) {
+                run.received++;
+                run.reject(csv.recordLine(), e.getMessage());
+                return null;
+            }
+            if (fields == null) return null;
+            long line = csv.recordLine();
+            if (fields.size() == 1 && fields.get(0).isBlank()) continue;
+            if (fields.size() != header.size()) {
+                run.received++;
+                run.reject(line, String.format("Expected %d fields but found %d", header.size(), fields.size()));
+                continue;
+            }
+            BookCreateDto book = new BookCreateDto();
+            book.setTitle(field(fields, columns, "title"));
+            book.setAuthor(field(fields, columns, "author"));
+            book.setGenre(field(fields, columns, "genre"));
+            book.setSummary(field(fields, columns, "summary"));
+            String stock = field(fields, columns, "stockcount");
+            if (stock != null) {
+                try {
+                    book.setStockCount(Integer.parseInt(stock));
+                } catch (NumberFormatException e) {
+                    run.received++;
+                    run.reject(line, "stockCount must be a whole number");
+                    continue;
+                }
+            }
+            run.accept(line, book);
+        }
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null) return null;
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private String readNdjson(BoundedLineReader reader, Run run) throws IOException {
+        long line = 0;
+        while (true) {
+            line++;
+            String json;
+            try {
+                json = reader.readLine();
+            } catch (BoundedLineReader.TooLongException e) {
+                run.received++;
+                run.reject(line, e.getMessage());
+                continue;
+            }
+            if (json == null) return null;
+            if (json.isBlank()) continue;
+            BookCreateDto book;
+            try {
+                book = jsonMapper.readValue(json, BookCreateDto.class);
+            } catch (JacksonException e) {
+                run.received++;
+                run.reject(line, "Invalid JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            run.accept(line, book);
+        }
+    }
+
+    // Same rules as the BookCreateDto constraints, plus the column widths
+    private static String validate(BookCreateDto book) {
+        if (book.getTitle() == null || book.getTitle().isBlank()) return "title is required";
+        if (book.getAuthor() == null || book.getAuthor().isBlank()) return "author is required";
+        if (book.getStockCount() == null) return "stockCount is required";
+        if (book.getStockCount() < 0) return "stockCount must not be negative";
+        if (tooLong(book.getTitle())) return "title must be at most " + MAX_LENGTH + " characters";
+        if (tooLong(book.getAuthor())) return "author must be at most " + MAX_LENGTH + " characters";
+        if (tooLong(book.getGenre())) return "genre must be at most " + MAX_LENGTH + " characters";
+        if (tooLong(book.getSummary())) return "summary must be at most " + MAX_LENGTH + " characters";
+        return null;
+    }
+
+    private static boolean tooLong(String value) {
+        return value != null && value.length() > MAX_LENGTH;
+    }
+
+    private void flush(Run run) {
+        if (run.batch.isEmpty()) return;
+        List<Row> rows = run.batch;
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT, rows, rows.size(), (ps, row) -> {
+                        BookCreateDto b = row.book();
+                        ps.setString(1, b.getTitle());
+                        ps.setString(2, b.getAuthor());
+                        ps.setString(3, b.getGenre());
+                        ps.setString(4, b.getSummary());
+                        ps.setInt(5, b.getStockCount());
+                    }));
+            run.imported += rows.size();
+        } catch (DataAccessException e) {
+            // The batch rolled back as a whole; insert its rows one by one to find the culprits
+            for (Row row : rows) {
+                BookCreateDto b = row.book();
+                try {
+                    jdbcTemplate.update(INSERT, b.getTitle(), b.getAuthor(), b.getGenre(), b.getSummary(), b.getStockCount());
+                    run.imported++;
+                } catch (DataAccessException rowError) {
+                    run.reject(row.line(), "Rejected by the database: "
+                            + NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                }
+            }
+        }
+        rows.clear();
+    }
+}
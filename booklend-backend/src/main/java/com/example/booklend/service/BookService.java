@@ -1,32 +1,247 @@
 package com.example.booklend.service;
 
+import com.example.booklend.cache.BookCache;
+import com.example.booklend.cache.CatalogSnapshot;
+import com.example.booklend.cache.CatalogVersion;
+import com.example.booklend.dto.CursorPage;
+import com.example.booklend.dto.GenreStatsDto;
+import com.example.booklend.dto.PageResponse;
 import com.example.booklend.model.Book;
 import com.example.booklend.repository.BookRepository;
-import com.example.booklend.repository.RentalRepository;
+import com.example.booklend.search.BookSearchIndex;
+import com.example.booklend.search.BookSuggester;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class BookService {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final Map<String, String> SORTABLE_FIELDS = Map.of(
+            "title", "title",
+            "author", "author",
+            "stock", "stockCount");
+
     @Autowired
     private BookRepository bookRepository;
     @Autowired
-    private RentalRepository rentalRepository;
+    private BookSearchIndex bookSearchIndex;
+    @Autowired
+    private BookSuggester bookSuggester;
+    @Autowired
+    private CatalogVersion catalogVersion;
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+    @Autowired
+    private BookCache bookCache;
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    // Genre aggregates for the catalog version they were computed at
+    private record GenreStats(long version, List<GenreStatsDto> genres) {}
+    private volatile GenreStats genreStats;
+
+    public ResponseEntity<?> listAll(String ifNoneMatch, String acceptEncoding) {
+        // Version is read before the data, see CatalogVersion
+        long version = catalogVersion.current();
+        String etag = catalogVersion.catalogEtag(version);
+        if (CatalogVersion.matches(ifNoneMatch, etag)) return notModified(etag);
+        if (CatalogVersion.matches(ifNoneMatch, CatalogVersion.gzipVariant(etag))) {
+            return notModified(CatalogVersion.gzipVariant(etag));
+        }
+
+        // Fast path: pre-encoded bytes, no query and no serialization. The snapshot may trail the
+        // current version by the rebuild debounce; it is then tagged with its own, older version.
+        CatalogSnapshot.Snapshot snapshot = catalogSnapshot.latest();
+        if (snapshot != null) {
+            boolean gzip = acceptsGzip(acceptEncoding);
+            String snapshotEtag = catalogVersion.catalogEtag(snapshot.version());
+            if (gzip) snapshotEtag = CatalogVersion.gzipVariant(snapshotEtag);
+            if (CatalogVersion.matches(ifNoneMatch, snapshotEtag)) return notModified(snapshotEtag);
+            ResponseEntity.BodyBuilder builder = cacheable(snapshotEtag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (gzip) builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return builder.body(gzip ? snapshot.gzip() : snapshot.json());
+        }
+
+        // borrowedCount is populated by the same query that loads the books
+        List<Book> books = bookRepository.findAllWithBorrowedCount();
+        return cacheable(etag).body(books);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) continue;
+            // "gzip;q=0" explicitly refuses it
+            return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+        }
+        return false;
+    }
+
+    public ResponseEntity<?> getById(Long id, String ifNoneMatch) {
+        String etag = catalogVersion.bookEtag(id);
+        if (CatalogVersion.matches(ifNoneMatch, etag)) return notModified(etag);
+        Optional<Book> b = bookCache.get(id, () -> bookRepository.findById(id));
+        return b.<ResponseEntity<?>>map(book -> cacheable(etag).body(book))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * URLs of the cover and of the downscaled variants generated so far. Missing variants can
+     * still be requested through {@link #image}, which generates them.
+     */
+    public ResponseEntity<?> images(Long id) {
+        Optional<Book> b = bookCache.get(id, () -> bookRepository.findById(id));
+        if (b.isEmpty()) return ResponseEntity.notFound().build();
+        String original = b.get().getImageFilename();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("original", original == null ? null : "/covers/" + original);
+        Map<String, String> variants = new LinkedHashMap<>();
+        if (original != null) {
+            imageVariantService.existing(original).forEach((v, name) -> variants.put(v.key(), "/covers/" + name));
+        }
+        body.put("variants", variants);
+        return ResponseEntity.ok(body);
+    }
 
-    public ResponseEntity<?> listAll() {
-        List<Book> books = bookRepository.findAll();
-        // Populate transient borrowedCount for client display
-        books.forEach(b -> b.setBorrowedCount(rentalRepository.countByBookIdAndReturnedFalse(b.getId())));
-        return ResponseEntity.ok(books);
+    public ResponseEntity<?> image(Long id, String variantKey) {
+        ImageVariantService.Variant variant = ImageVariantService.Variant.fromKey(variantKey);
+        if (variant == null) return ResponseEntity.badRequest().body("Unknown variant. Use thumb, card or detail");
+        Optional<Book> b = bookCache.get(id, () -> bookRepository.findById(id));
+        if (b.isEmpty() || b.get().getImageFilename() == null) return ResponseEntity.notFound().build();
+        String original = b.get().getImageFilename();
+        try {
+            if (imageVariantService.resolve(original, variant) == null) return ResponseEntity.notFound().build();
+        } catch (VariantsBusyException e) {
+            // Generation is backed up: fall back to the full-size cover, uncached, so the next request retries
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create("/covers/" + original))
+                    .cacheControl(CacheControl.noStore())
+                    .build();
+        }
+        // Send the client to the immutable, long-cached copy; the redirect itself may be cached for a day
+        return ResponseEntity.status(HttpStatus.FOUND)
+                .location(URI.create("/covers/" + ImageVariantService.variantName(original, variant)))
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(1)))
+                .build();
     }
 
-    public ResponseEntity<?> getById(Long id) {
-        Optional<Book> b = bookRepository.findById(id);
-        b.ifPresent(book -> book.setBorrowedCount(rentalRepository.countByBookIdAndReturnedFalse(book.getId())));
-        return b.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    // Clients may keep the body but must revalidate it with If-None-Match before reuse
+    private ResponseEntity.BodyBuilder cacheable(String etag) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .lastModified(catalogVersion.lastModified())
+                .cacheControl(CacheControl.noCache());
+    }
+
+    private ResponseEntity<?> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .lastModified(catalogVersion.lastModified())
+                .cacheControl(CacheControl.noCache())
+                .build();
+    }
+
+    public ResponseEntity<?> genres(String ifNoneMatch) {
+        long version = catalogVersion.current();
+        String etag = catalogVersion.etag("genres", version);
+        if (CatalogVersion.matches(ifNoneMatch, etag)) return notModified(etag);
+
+        GenreStats cached = genreStats;
+        if (cached == null || cached.version() != version) {
+            cached = new GenreStats(version, bookRepository.genreStats());
+            genreStats = cached;
+        }
+        return cacheable(etag).body(cached.genres());
+    }
+
+    public ResponseEntity<?> search(int page, int size, String sort, String genre, boolean inStockOnly, String query) {
+        if (page < 0) return ResponseEntity.badRequest().body("page must not be negative");
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(String.format("size must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+        Sort order = parseSort(sort);
+        if (order == null) {
+            return ResponseEntity.badRequest().body("Invalid sort. Use title, author or stock with optional ,asc or ,desc");
+        }
+        String genreFilter = genre == null || genre.isBlank() ? null : genre;
+        Page<Book> result = bookRepository.searchWithBorrowedCount(
+                genreFilter, inStockOnly, query, PageRequest.of(page, size, order));
+        return ResponseEntity.ok(PageResponse.of(result));
+    }
+
+    // Accepts "field" or "field,direction"; id is appended as a tie-breaker so pages are stable.
+    private Sort parseSort(String sort) {
+        if (sort == null || sort.isBlank()) return Sort.by("id");
+        String[] parts = sort.split(",");
+        String field = SORTABLE_FIELDS.get(parts[0].trim().toLowerCase());
+        if (field == null || parts.length > 2) return null;
+        Sort.Direction direction = Sort.Direction.ASC;
+        if (parts.length == 2) {
+            Optional<Sort.Direction> parsed = Sort.Direction.fromOptionalString(parts[1].trim());
+            if (parsed.isEmpty()) return null;
+            direction = parsed.get();
+        }
+        return Sort.by(direction, field).and(Sort.by("id"));
+    }
+
+    public ResponseEntity<?> fullTextSearch(String query, int limit) {
+        if (query == null || query.isBlank()) return ResponseEntity.badRequest().body("q is required");
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(String.format("limit must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+        return ResponseEntity.ok(bookSearchIndex.search(query, limit));
+    }
+
+    public ResponseEntity<?> suggest(String prefix, int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            return ResponseEntity.badRequest().body(String.format("limit must be between 1 and %d", MAX_SUGGESTIONS));
+        }
+        return ResponseEntity.ok(bookSuggester.suggest(prefix == null ? "" : prefix, limit));
+    }
+
+    public ResponseEntity<?> scroll(String cursor, int size, String sort) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(String.format("size must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+        String field = sort == null || sort.isBlank() ? "title" : sort.trim().toLowerCase();
+        if (!field.equals("title") && !field.equals("id")) {
+            return ResponseEntity.badRequest().body("Invalid sort. Use title or id");
+        }
+        CursorCodec.Position after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            after = CursorCodec.decode(cursor, field);
+            if (after == null) return ResponseEntity.badRequest().body("Invalid cursor");
+        }
+
+        // Fetch one extra row to learn whether another page exists
+        List<Book> books = field.equals("title")
+                ? bookRepository.scrollByTitle(after == null ? null : after.key(), after == null ? null : after.id(), size + 1)
+                : bookRepository.scrollById(after == null ? null : after.id(), size + 1);
+        String next = null;
+        if (books.size() > size) {
+            books = books.subList(0, size);
+            Book last = books.get(size - 1);
+            next = CursorCodec.encode(field, last.getId(), field.equals("title") ? last.getTitle() : null);
+        }
+        return ResponseEntity.ok(new CursorPage<>(books, next));
     }
 }
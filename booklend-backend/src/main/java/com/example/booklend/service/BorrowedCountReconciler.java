@@ -0,0 +1,72 @@
+package com.example.booklend.service;
+
+import com.example.booklend.event.CatalogChangedEvent;
+import com.example.booklend.repository.BookRepository;
+import com.example.booklend.repository.UserRepository;
+import com.example.booklend.security.PrincipalCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * Periodically checks the denormalized rental counters ({@code books.borrowed_count} and
+ * {@code users.active_rental_count}) against the rentals table and repairs any drift, e.g.
+ * from rows edited by hand.
+ * <p>
+ * Runs at REPEATABLE READ so a reservation committing mid-run makes this run fail with a
+ * serialization error instead of overwriting a fresh counter with a stale count; the next
+ * run picks it up again. The repairs are native statements that bypass the JPA listeners,
+ * so once they commit the catalog caches and cached principals are dropped explicitly.
+ * Only one node reconciles at a time (see {@link JobLeaseService}).
+ */
+@Component
+public class BorrowedCountReconciler {
+    private static final Logger logger = LoggerFactory.getLogger(BorrowedCountReconciler.class);
+
+    static final String JOB = "rental-counter-reconcile";
+
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JobLeaseService jobLeaseService;
+    @Autowired
+    private PrincipalCache principalCache;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${rentals.reconcile.lease:PT5M}")
+    private Duration leaseDuration;
+
+    private record Repaired(int books, int users) {}
+
+    @Scheduled(initialDelayString = "${rentals.reconcile.interval:PT10M}", fixedDelayString = "${rentals.reconcile.interval:PT10M}")
+    public void reconcile() {
+        if (!jobLeaseService.tryAcquire(JOB, leaseDuration)) return;
+        try {
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+            Repaired repaired = tx.execute(status ->
+                    new Repaired(bookRepository.reconcileBorrowedCounts(), userRepository.reconcileActiveRentalCounts()));
+            if (repaired.books() > 0) eventPublisher.publishEvent(CatalogChangedEvent.imported());
+            if (repaired.users() > 0) principalCache.invalidateAll();
+            if (repaired.books() > 0 || repaired.users() > 0) {
+                logger.warn("Repaired rental counter drift: {} books, {} users", repaired.books(), repaired.users());
+            }
+        } finally {
+            jobLeaseService.release(JOB);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.booklend.service;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * {@link java.io.BufferedReader#readLine()} with a cap on the line length, so a file without
+ * line breaks cannot make the importer buffer it whole. A line over the cap is skipped up to the
+ * next line break and reported with {@link TooLongException}; reading then carries on.
+ */
+class BoundedLineReader {
+
+    /**
+     * The current record is longer than the cap; the rest of its line has been skipped.
+     */
+    static final class TooLongException extends RuntimeException {
+        TooLongException(int maxLength) {
+            super("Record is longer than " + maxLength + " characters");
+        }
+    }
+
+    private final Reader in;
+    private final int maxLength;
+    private final char[] buffer = new char[8192];
+    private int pos;
+    private int limit;
+    private boolean skipLf;
+
+    BoundedLineReader(Reader in, int maxLength) {
+        this.in = in;
+        this.maxLength = maxLength;
+    }
+
+    int maxLength() {
+        return maxLength;
+    }
+
+    /**
+     * @return the next line without its terminator, or null at end of input
+     * @throws TooLongException if the line is longer than the cap
+     */
+    String readLine() throws IOException {
+        StringBuilder line = null;
+        boolean overflow = false;
+        while (true) {
+            if (pos == limit) {
+                int n = in.read(buffer, 0, buffer.length);
+                if (n <= 0) {
+                    if (line == null) return null;
+                    break;
+                }
+                pos = 0;
+                limit = n;
+            }
+            char c = buffer[pos++];
+            if (skipLf) {
+                skipLf = false;
+                if (c == '\n') continue;
+            }
+            if (line == null) line = new StringBuilder();
+            if (c == '\n') break;
+            if (c == '\r') {
+                skipLf = true;
+                break;
+            }
+            if (overflow) continue;
+            if (line.length() == maxLength) {
+                overflow = true;
+                continue;
+            }
+            line.append(c);
+        }
+        if (overflow) throw new TooLongException(maxLength);
+        return line.toString();
+    }
+}
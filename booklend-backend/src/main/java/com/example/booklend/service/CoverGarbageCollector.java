@@ -0,0 +1,38 @@
+package com.example.booklend.service;
+
+import com.example.booklend.event.CoverReleasedEvent;
+import com.example.booklend.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+
+/**
+ * Removes a cover file, and its downscaled variants, once the last book using it is gone.
+ * Covers are content-addressed, so several books can share one file; the reference count is
+ * the number of books whose image_filename points at it.
+ */
+@Component
+public class CoverGarbageCollector {
+    private static final Logger logger = LoggerFactory.getLogger(CoverGarbageCollector.class);
+
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    // After commit, so the deleted book no longer counts as a reference
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCoverReleased(CoverReleasedEvent event) {
+        String filename = event.filename();
+        boolean deleted = fileStorageService.deleteIfUnreferenced(filename,
+                () -> bookRepository.countByImageFilename(filename) == 0,
+                Arrays.stream(ImageVariantService.Variant.values())
+                        .map(v -> ImageVariantService.variantName(filename, v))
+                        .toList());
+        if (deleted) logger.debug("Deleted unreferenced cover {}", filename);
+    }
+}
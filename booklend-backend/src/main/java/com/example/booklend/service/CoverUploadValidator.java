@@ -0,0 +1,177 @@
+package com.example.booklend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Checks cover uploads while they stream to storage instead of trusting the Content-Type header:
+ * <ul>
+ *     <li>the declared length, if any, is checked before a byte is read;</li>
+ *     <li>the type comes from the first bytes (JPEG, PNG or GIF), so anything else is refused
+ *     after reading a few bytes;</li>
+ *     <li>the byte count is enforced as the body is copied, for chunked uploads that declare no length;</li>
+ *     <li>width and height are read from the image header only, never by decoding the bitmap,
+ *     so an oversized image is refused before the variant pipeline ever decodes it. The header is
+ *     parsed from the first {@value #HEADER_BYTES} bytes, held in memory, before anything is
+ *     written; only when metadata segments push it further out is it read from the staged file.</li>
+ * </ul>
+ */
+@Component
+public class CoverUploadValidator {
+
+    enum Format {
+        JPEG("jpg", new int[]{0xFF, 0xD8, 0xFF}),
+        PNG("png", new int[]{0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A}),
+        GIF("gif", new int[]{'G', 'I', 'F', '8'});
+
+        private final String extension;
+        private final int[] magic;
+
+        Format(String extension, int[] magic) {
+            this.extension = extension;
+            this.magic = magic;
+        }
+
+        static Format sniff(byte[] head, int length) {
+            for (Format f : values()) {
+                if (length < f.magic.length) continue;
+                boolean match = true;
+                for (int i = 0; i < f.magic.length && match; i++) match = (head[i] & 0xFF) == f.magic[i];
+                if (match) return f;
+            }
+            return null;
+        }
+    }
+
+    // Prefix buffered in memory for the type and dimension checks
+    static final int HEADER_BYTES = 64 * 1024;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Value("${covers.upload.max-size:5MB}")
+    private DataSize maxSize;
+    @Value("${covers.upload.max-dimension:6000}")
+    private int maxDimension;
+
+    /**
+     * Validates the upload and stages it (see {@link FileStorageService#stage}). Nothing is left
+     * on disk when it is rejected.
+     *
+     * @param declaredLength Content-Length or part size, or -1 when unknown
+     */
+    public FileStorageService.StagedFile stage(InputStream content, long declaredLength) throws IOException, RejectedUploadException {
+        long limit = maxSize.toBytes();
+        if (declaredLength > limit) throw tooLarge();
+
+        BufferedInputStream in = new BufferedInputStream(content, HEADER_BYTES);
+        in.mark(HEADER_BYTES);
+        byte[] head = in.readNBytes(HEADER_BYTES);
+        in.reset();
+        Format format = Format.sniff(head, head.length);
+        if (format == null) throw new RejectedUploadException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "File is not an image");
+
+        int[] size;
+        try (ImageInputStream header = new MemoryCacheImageInputStream(new ByteArrayInputStream(head))) {
+            size = dimensions(header, format);
+        }
+        // A short prefix is the whole upload, so an unreadable header there is final
+        if (size == null && head.length < HEADER_BYTES) throw corrupt();
+        if (size != null) checkDimensions(size);
+
+        FileStorageService.StagedFile staged;
+        try {
+            staged = fileStorageService.stage(new LimitedInputStream(in, limit), "cover." + format.extension);
+        } catch (SizeLimitExceeded e) {
+            throw tooLarge();
+        }
+        if (size != null) return staged;
+        try (ImageInputStream file = ImageIO.createImageInputStream(staged.tmp().toFile())) {
+            size = file == null ? null : dimensions(file, format);
+            if (size == null) throw corrupt();
+            checkDimensions(size);
+            return staged;
+        } catch (RejectedUploadException | IOException | RuntimeException e) {
+            fileStorageService.discard(staged);
+            throw e;
+        }
+    }
+
+    private void checkDimensions(int[] size) throws RejectedUploadException {
+        if (size[0] > maxDimension || size[1] > maxDimension) {
+            throw new RejectedUploadException(HttpStatus.BAD_REQUEST,
+                    String.format("Image must be at most %dx%d pixels", maxDimension, maxDimension));
+        }
+    }
+
+    private static RejectedUploadException corrupt() {
+        return new RejectedUploadException(HttpStatus.BAD_REQUEST, "Image is corrupt");
+    }
+
+    private RejectedUploadException tooLarge() {
+        return new RejectedUploadException(HttpStatus.CONTENT_TOO_LARGE,
+                String.format("Image must be at most %d KB", maxSize.toKilobytes()));
+    }
+
+    // Header-only: getWidth/getHeight make the reader parse up to the frame header, no pixels.
+    // Null if the header is malformed or lies beyond the end of the stream.
+    private static int[] dimensions(ImageInputStream stream, Format format) {
+        Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName(format.name());
+        if (!readers.hasNext()) return null;
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(stream, true, true);
+            return new int[]{reader.getWidth(0), reader.getHeight(0)};
+        } catch (IOException | RuntimeException e) {
+            return null;
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private static final class SizeLimitExceeded extends IOException {}
+
+    // Fails the copy as soon as one byte more than the limit has arrived
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) add(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            int n = super.read(buffer, off, len);
+            if (n > 0) add(n);
+            return n;
+        }
+
+        private void add(long n) throws SizeLimitExceeded {
+            count += n;
+            if (count > limit) throw new SizeLimitExceeded();
+        }
+    }
+}
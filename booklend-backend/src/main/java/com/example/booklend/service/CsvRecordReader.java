@@ -0,0 +1,75 @@
+package com.example.booklend.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads RFC 4180 CSV one record at a time: comma separated, fields optionally quoted, with
+ * {@code ""} for a quote and line breaks allowed inside quotes. A record, line breaks included,
+ * may be at most the line reader's cap long.
+ */
+class CsvRecordReader {
+    private final BoundedLineReader reader;
+    private long line;
+    private long recordLine;
+
+    CsvRecordReader(BoundedLineReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return the next record's fields, or null at end of input
+     * @throws IllegalArgumentException when a quoted field is never closed
+     * @throws BoundedLineReader.TooLongException when the record is too long; reading resumes on
+     * the line after the one where the cap was passed
+     */
+    List<String> next() throws IOException {
+        line++;
+        recordLine = line;
+        String current = reader.readLine();
+        if (current == null) return null;
+        int length = current.length();
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == current.length()) {
+                if (!quoted) break;
+                // Line break inside a quoted field
+                line++;
+                current = reader.readLine();
+                if (current == null) throw new IllegalArgumentException("Unterminated quoted field");
+                length += current.length() + 1;
+                if (length > reader.maxLength()) throw new BoundedLineReader.TooLongException(reader.maxLength());
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = current.charAt(i++);
+            if (quoted) {
+                if (c != '"') field.append(c);
+                else if (i < current.length() && current.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else quoted = false;
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Line on which the record last returned by next() starts
+    long recordLine() {
+        return recordLine;
+    }
+}
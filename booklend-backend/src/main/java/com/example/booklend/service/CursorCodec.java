@@ -0,0 +1,38 @@
+package com.example.booklend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes keyset positions as opaque, URL-safe continuation tokens.
+ * A token carries the sort field it was issued for, the last id and the last sort key,
+ * so a cursor can't be replayed against a different ordering.
+ */
+final class CursorCodec {
+    private CursorCodec() {}
+
+    record Position(String field, long id, String key) {}
+
+    static String encode(String field, long id, String key) {
+        String payload = field + ":" + id + ":" + (key == null ? "" : key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the decoded position, or null if the token is malformed or was issued for another field
+     */
+    static Position decode(String cursor, String expectedField) {
+        try {
+            String payload = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int first = payload.indexOf(':');
+            int second = payload.indexOf(':', first + 1);
+            if (first < 0 || second < 0) return null;
+            String field = payload.substring(0, first);
+            if (!field.equals(expectedField)) return null;
+            long id = Long.parseLong(payload.substring(first + 1, second));
+            return new Position(field, id, payload.substring(second + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
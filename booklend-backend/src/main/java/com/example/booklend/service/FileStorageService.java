@@ -9,11 +9,19 @@ import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.annotation.PostConstruct;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.UUID;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
 
 @Service
 public class FileStorageService {
@@ -23,6 +31,12 @@ public class FileStorageService {
 
 	private Path rootLocation;
 
+	private final Object[] locks = new Object[64];
+
+	{
+		for (int i = 0; i < locks.length; i++) locks[i] = new Object();
+	}
+
 	@PostConstruct
 	public void init() {
 		this.rootLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
@@ -33,15 +47,109 @@ public class FileStorageService {
 		}
 	}
 
+	/**
+	 * A hashed upload waiting in a temp file; {@link #commit} moves it into place. Keeping it
+	 * staged until the referencing book is saved means a concurrent {@link #deleteIfUnreferenced}
+	 * of the same content can never remove the file out from under the new book.
+	 */
+	public record StagedFile(Path tmp, String filename) {}
+
+	/**
+	 * Stores the upload under the SHA-256 of its bytes, so a name always means the same content
+	 * and can be cached forever.
+	 */
 	public String store(MultipartFile file) throws IOException {
-		String original = StringUtils.cleanPath(file.getOriginalFilename());
+		StagedFile staged = stage(file.getInputStream(), file.getOriginalFilename());
+		try {
+			commit(staged);
+		} finally {
+			discard(staged);
+		}
+		return staged.filename();
+	}
+
+	/**
+	 * Streams the content to a temp file, hashing it on the way, and works out its final name:
+	 * {@code ab/cd/abcd...ef.ext}, sharded on the first two hash bytes so no directory grows huge.
+	 */
+	public StagedFile stage(InputStream content, String originalFilename) throws IOException {
+		String original = StringUtils.cleanPath(originalFilename == null ? "" : originalFilename);
 		String ext = "";
 		int idx = original.lastIndexOf('.');
-		if (idx != -1) ext = original.substring(idx);
-		String filename = UUID.randomUUID().toString() + ext;
-		Path target = rootLocation.resolve(filename);
-		Files.copy(file.getInputStream(), target);
-		return filename;
+		if (idx != -1) ext = original.substring(idx).toLowerCase(Locale.ROOT);
+		if (!ext.matches("\\.[a-z0-9]{1,5}")) ext = "";
+
+		Path tmp = Files.createTempFile(rootLocation, ".upload-", ".tmp");
+		try {
+			MessageDigest digest = sha256();
+			try (InputStream in = new DigestInputStream(content, digest)) {
+				Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+			}
+			String hash = HexFormat.of().formatHex(digest.digest());
+			return new StagedFile(tmp, hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + ext);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(tmp);
+			throw e;
+		}
+	}
+
+	/**
+	 * Moves a staged file into place, unless the same content is already stored.
+	 */
+	public void commit(StagedFile staged) throws IOException {
+		Path target = path(staged.filename());
+		synchronized (lockFor(staged.filename())) {
+			if (Files.exists(target)) return;
+			Files.createDirectories(target.getParent());
+			Files.move(staged.tmp(), target, StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+
+	public void discard(StagedFile staged) {
+		if (staged == null) return;
+		try {
+			Files.deleteIfExists(staged.tmp());
+		} catch (IOException ignored) {}
+	}
+
+	/**
+	 * Deletes a stored file and the files derived from it once nothing references it any more.
+	 * The reference check runs under the same lock as {@link #commit}, so a file is never removed
+	 * after a new reference to it was saved.
+	 *
+	 * @param unreferenced checked under the lock, e.g. a count of books using the file
+	 * @return true if the files were deleted
+	 */
+	public boolean deleteIfUnreferenced(String filename, BooleanSupplier unreferenced, Collection<String> derived) {
+		synchronized (lockFor(filename)) {
+			if (!unreferenced.getAsBoolean()) return false;
+			delete(filename);
+			derived.forEach(this::delete);
+			return true;
+		}
+	}
+
+	private Object lockFor(String filename) {
+		return locks[Math.floorMod(filename.hashCode(), locks.length)];
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Resolves a stored filename inside the upload directory.
+	 *
+	 * @throws IllegalArgumentException if the name points outside it
+	 */
+	public Path path(String filename) {
+		Path file = rootLocation.resolve(filename).normalize();
+		if (!file.startsWith(rootLocation)) throw new IllegalArgumentException("Invalid filename");
+		return file;
 	}
 
 	public Resource loadAsResource(String filename) {
@@ -0,0 +1,251 @@
+package com.example.booklend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downscaled JPEG copies of cover images, so catalog grids don't download full-size photos.
+ * Variants live next to the original as {@code <name>-<variant>.jpg}. They are generated on a
+ * small background pool right after upload; covers uploaded before this existed (or whose job
+ * was dropped because the pool was busy) get theirs generated on first request instead, on the
+ * same bounded pool, so anonymous requests can never put more decoders to work than it allows.
+ */
+@Service
+public class ImageVariantService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+
+    public enum Variant {
+        THUMB(160), CARD(400), DETAIL(960);
+
+        private final int maxWidth;
+
+        Variant(int maxWidth) {
+            this.maxWidth = maxWidth;
+        }
+
+        public String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        public static Variant fromKey(String key) {
+            for (Variant v : values()) {
+                if (v.key().equalsIgnoreCase(key)) return v;
+            }
+            return null;
+        }
+    }
+
+    private final FileStorageService fileStorageService;
+    private final ThreadPoolExecutor executor;
+    private final float jpegQuality;
+    private final Duration lazyWait;
+    // One generation per original at a time, shared by the upload job and lazy requests
+    private final Map<String, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+    // Originals Java cannot decode. Names are content hashes, so the verdict never goes stale.
+    private final Cache<String, Boolean> undecodable = Caffeine.newBuilder().maximumSize(10_000).build();
+
+    public ImageVariantService(FileStorageService fileStorageService,
+                               MeterRegistry meterRegistry,
+                               @Value("${images.variants.threads:2}") int threads,
+                               @Value("${images.variants.queue-capacity:32}") int queueCapacity,
+                               @Value("${images.variants.jpeg-quality:0.8}") float jpegQuality,
+                               @Value("${images.variants.lazy-wait:PT5S}") Duration lazyWait) {
+        this.fileStorageService = fileStorageService;
+        this.jpegQuality = jpegQuality;
+        this.lazyWait = lazyWait;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "image-variants-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "image-variants");
+    }
+
+    /**
+     * Deterministic variant name: {@code covers/abc.png} becomes {@code covers/abc-thumb.jpg}.
+     */
+    public static String variantName(String original, Variant variant) {
+        int slash = original.lastIndexOf('/');
+        int dot = original.lastIndexOf('.');
+        String base = dot > slash ? original.substring(0, dot) : original;
+        return base + "-" + variant.key() + ".jpg";
+    }
+
+    /**
+     * Queues generation of every variant. If the pool is saturated the job is dropped; the
+     * variants are then generated lazily when first requested.
+     */
+    public void generateAsync(String original) {
+        try {
+            generate(original);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Variant generation for {} deferred, pool is busy", original);
+        }
+    }
+
+    /**
+     * @return path of the variant, generating it first on the pool if needed, or null when the
+     * original is missing or not an image Java can decode
+     * @throws VariantsBusyException if the pool is saturated or generation takes longer than
+     * {@code images.variants.lazy-wait}
+     */
+    public Path resolve(String original, Variant variant) throws VariantsBusyException {
+        Path path = fileStorageService.path(variantName(original, variant));
+        if (Files.exists(path)) return path;
+        if (undecodable.getIfPresent(original) != null) return null;
+        try {
+            generate(original).get(lazyWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException | TimeoutException e) {
+            throw new VariantsBusyException("Variant generation for " + original + " is backed up");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VariantsBusyException("Interrupted while generating variants for " + original);
+        } catch (ExecutionException e) {
+            logger.warn("Could not generate variants for {}", original, e.getCause());
+            return null;
+        }
+        return Files.exists(path) ? path : null;
+    }
+
+    /**
+     * @return variant key to stored filename, for the variants that exist right now
+     */
+    public Map<Variant, String> existing(String original) {
+        Map<Variant, String> found = new EnumMap<>(Variant.class);
+        for (Variant v : Variant.values()) {
+            String name = variantName(original, v);
+            if (Files.exists(fileStorageService.path(name))) found.put(v, name);
+        }
+        return found;
+    }
+
+    /**
+     * @throws RejectedExecutionException if the pool is saturated
+     */
+    private CompletableFuture<Void> generate(String original) {
+        CompletableFuture<Void> created = new CompletableFuture<>();
+        CompletableFuture<Void> running = pending.putIfAbsent(original, created);
+        if (running != null) return running;
+        Runnable job = () -> {
+            try {
+                writeVariants(original);
+                created.complete(null);
+            } catch (Exception e) {
+                created.completeExceptionally(e);
+            } finally {
+                pending.remove(original, created);
+            }
+        };
+        try {
+            executor.execute(job);
+        } catch (RejectedExecutionException e) {
+            pending.remove(original, created);
+            throw e;
+        }
+        return created;
+    }
+
+    private void writeVariants(String original) throws IOException {
+        Path source = fileStorageService.path(original);
+        if (!Files.exists(source)) return;
+        BufferedImage image;
+        try {
+            image = ImageIO.read(source.toFile());
+        } catch (IIOException | RuntimeException e) {
+            // Malformed image data, as opposed to an I/O failure reading the file
+            image = null;
+        }
+        if (image == null) {
+            undecodable.put(original, Boolean.TRUE);
+            return;
+        }
+        for (Variant v : Variant.values()) {
+            Path target = fileStorageService.path(variantName(original, v));
+            if (Files.exists(target)) continue;
+            // Write beside the target and rename, so readers never see a half-written file
+            Path tmp = Files.createTempFile(target.getParent(), ".variant-", ".tmp");
+            try {
+                writeJpeg(scale(image, v.maxWidth), tmp);
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    // Never upscales; draws onto an opaque RGB canvas since JPEG has no alpha
+    static BufferedImage scale(BufferedImage source, int maxWidth) {
+        int width = Math.min(maxWidth, source.getWidth());
+        int height = Math.max(1, Math.round(source.getHeight() * (width / (float) source.getWidth())));
+        BufferedImage out = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam params = writer.getDefaultWriteParam();
+        params.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        params.setCompressionQuality(jpegQuality);
+        params.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), params);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
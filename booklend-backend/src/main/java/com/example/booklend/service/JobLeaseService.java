@@ -0,0 +1,45 @@
+package com.example.booklend.service;
+
+import com.example.booklend.repository.JobLeaseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Database-backed leases that keep a scheduled job to one node at a time. A lease is a row in
+ * {@code job_leases} with an expiry, so a node that dies mid-run only blocks the job until its
+ * lease runs out. Each call commits on its own, even when the caller is inside a transaction,
+ * so other nodes see the lease immediately.
+ */
+@Service
+public class JobLeaseService {
+    // Unique per running instance, readable in the table when debugging
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+
+    @Autowired
+    private JobLeaseRepository jobLeaseRepository;
+
+    /**
+     * Acquires the lease, or extends it when this instance already holds it.
+     *
+     * @return false if another instance holds an unexpired lease
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean tryAcquire(String job, Duration duration) {
+        return jobLeaseRepository.acquire(job, owner, duration.toSeconds()) == 1;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void release(String job) {
+        jobLeaseRepository.release(job, owner);
+    }
+
+    String owner() {
+        return owner;
+    }
+}
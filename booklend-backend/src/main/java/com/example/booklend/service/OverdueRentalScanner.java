@@ -0,0 +1,188 @@
+package com.example.booklend.service;
+
+import com.example.booklend.dto.OverdueRental;
+import com.example.booklend.event.OverdueRentalsEvent;
+import com.example.booklend.repository.RentalRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Daily scan of active rentals past their due date. Rows are streamed from the
+ * {@code (due_date, id)} partial index through a server-side cursor and grouped into batches;
+ * each batch becomes one {@link OverdueRentalsEvent} published on a small worker pool. At most
+ * {@code threads + queue-capacity} batches are in memory at once: when they are all taken the
+ * scan waits, so memory stays flat however many rentals are overdue.
+ * <p>
+ * Only one node runs the scan at a time (see {@link JobLeaseService}); the lease is extended
+ * after every batch and the scan stops if it has been lost.
+ */
+@Component
+public class OverdueRentalScanner {
+    private static final Logger logger = LoggerFactory.getLogger(OverdueRentalScanner.class);
+    static final String JOB = "overdue-rentals";
+
+    private final RentalRepository rentalRepository;
+    private final JobLeaseService jobLeaseService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+
+    private final Counter processed;
+    private final Counter batches;
+    private final Timer scanTimer;
+    // Rows handled by the running (or last) scan
+    private final AtomicLong progress = new AtomicLong();
+
+    @Value("${rentals.overdue.enabled:true}")
+    private boolean enabled;
+    @Value("${rentals.overdue.batch-size:200}")
+    private int batchSize;
+    @Value("${rentals.overdue.fee-per-day:0.25}")
+    private BigDecimal feePerDay;
+    @Value("${rentals.overdue.max-fee:10.00}")
+    private BigDecimal maxFee;
+    @Value("${rentals.overdue.lease:PT30M}")
+    private Duration leaseDuration;
+
+    public OverdueRentalScanner(RentalRepository rentalRepository,
+                                JobLeaseService jobLeaseService,
+                                ApplicationEventPublisher eventPublisher,
+                                MeterRegistry meterRegistry,
+                                @Value("${rentals.overdue.threads:2}") int threads,
+                                @Value("${rentals.overdue.queue-capacity:8}") int queueCapacity) {
+        this.rentalRepository = rentalRepository;
+        this.jobLeaseService = jobLeaseService;
+        this.eventPublisher = eventPublisher;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "overdue-notices-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.maxInFlight = threads + queueCapacity;
+        this.inFlight = new Semaphore(maxInFlight);
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "overdue-notices");
+
+        this.processed = Counter.builder("rentals.overdue.processed").register(meterRegistry);
+        this.batches = Counter.builder("rentals.overdue.batches").register(meterRegistry);
+        this.scanTimer = Timer.builder("rentals.overdue.scan").register(meterRegistry);
+        meterRegistry.gauge("rentals.overdue.progress", progress);
+    }
+
+    // The transaction keeps the streaming cursor open; it is read-only and never locks rentals
+    @Scheduled(cron = "${rentals.overdue.cron:0 0 6 * * *}")
+    @Transactional(readOnly = true)
+    public void run() {
+        if (!enabled) return;
+        if (!jobLeaseService.tryAcquire(JOB, leaseDuration)) {
+            logger.debug("Overdue scan skipped, another node holds the lease");
+            return;
+        }
+        try {
+            long count = scan(LocalDate.now(), () -> jobLeaseService.tryAcquire(JOB, leaseDuration));
+            if (count > 0) logger.info("Overdue scan found {} rentals", count);
+        } finally {
+            jobLeaseService.release(JOB);
+        }
+    }
+
+    /**
+     * Scans without a lease, for callers that coordinate on their own.
+     *
+     * @return number of overdue rentals published
+     */
+    @Transactional(readOnly = true)
+    public long scan(LocalDate today) {
+        return scan(today, () -> true);
+    }
+
+    private long scan(LocalDate today, BooleanSupplier stillOwner) {
+        progress.set(0);
+        // Failed scans are timed too, so a scan that keeps dying shows up in the timer
+        Timer.Sample sample = Timer.start();
+        try {
+            List<OverdueRentalsEvent.Notice> batch = new ArrayList<>(batchSize);
+            try (Stream<OverdueRental> rows = rentalRepository.streamOverdue(today)) {
+                Iterator<OverdueRental> it = rows.iterator();
+                while (it.hasNext()) {
+                    OverdueRental rental = it.next();
+                    long days = ChronoUnit.DAYS.between(rental.dueDate(), today);
+                    batch.add(new OverdueRentalsEvent.Notice(rental, days, fee(days, feePerDay, maxFee)));
+                    if (batch.size() < batchSize) continue;
+                    dispatch(batch);
+                    batch = new ArrayList<>(batchSize);
+                    if (!stillOwner.getAsBoolean()) {
+                        logger.warn("Overdue scan lost its lease after {} rentals, stopping", progress.get());
+                        break;
+                    }
+                }
+            }
+            if (!batch.isEmpty()) dispatch(batch);
+            awaitDispatched();
+            return progress.get();
+        } finally {
+            sample.stop(scanTimer);
+        }
+    }
+
+    static BigDecimal fee(long daysOverdue, BigDecimal perDay, BigDecimal cap) {
+        return perDay.multiply(BigDecimal.valueOf(daysOverdue)).min(cap);
+    }
+
+    private void dispatch(List<OverdueRentalsEvent.Notice> batch) {
+        // Blocks the scan while maxInFlight batches are queued or running
+        inFlight.acquireUninterruptibly();
+        progress.addAndGet(batch.size());
+        OverdueRentalsEvent event = new OverdueRentalsEvent(List.copyOf(batch));
+        executor.execute(() -> {
+            try {
+                eventPublisher.publishEvent(event);
+                processed.increment(event.notices().size());
+                batches.increment();
+            } catch (RuntimeException e) {
+                logger.warn("Overdue notice batch of {} failed", event.notices().size(), e);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private void awaitDispatched() {
+        inFlight.acquireUninterruptibly(maxInFlight);
+        inFlight.release(maxInFlight);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
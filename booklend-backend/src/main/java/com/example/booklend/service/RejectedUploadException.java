@@ -0,0 +1,19 @@
+package com.example.booklend.service;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * An upload refused on its content (type, size or dimensions); the message is meant for the client.
+ */
+public class RejectedUploadException extends Exception {
+    private final HttpStatus status;
+
+    public RejectedUploadException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.booklend.service;
+
+import com.example.booklend.repository.ArchivedRentalRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Moves rentals returned more than {@code rentals.archive.after-days} ago from {@code rentals}
+ * to {@code rentals_archive}. Works in small batches, each its own transaction, with a pause in
+ * between so it never holds locks long or competes with request traffic. There is no cursor to
+ * persist: every batch simply takes the oldest eligible rows still in the hot table, so a run
+ * cut short resumes where it left off next time.
+ */
+@Component
+public class RentalArchiver {
+    private static final Logger logger = LoggerFactory.getLogger(RentalArchiver.class);
+
+    static final String JOB = "rental-archive";
+
+    @Autowired
+    private ArchivedRentalRepository archivedRentalRepository;
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
+    @Value("${rentals.archive.enabled:true}")
+    private boolean enabled;
+    @Value("${rentals.archive.after-days:90}")
+    private int afterDays;
+    @Value("${rentals.archive.batch-size:500}")
+    private int batchSize;
+    @Value("${rentals.archive.pause-ms:200}")
+    private long pauseMs;
+    @Value("${rentals.archive.max-batches-per-run:200}")
+    private int maxBatchesPerRun;
+    @Value("${rentals.archive.lease:PT1H}")
+    private Duration leaseDuration;
+
+    @Scheduled(cron = "${rentals.archive.cron:0 30 3 * * *}")
+    public void run() {
+        if (!enabled) return;
+        // Concurrent runs would be safe (SKIP LOCKED) but would only compete for the same rows
+        if (!jobLeaseService.tryAcquire(JOB, leaseDuration)) return;
+        try {
+            int moved = archive(LocalDate.now().minusDays(afterDays));
+            if (moved > 0) logger.info("Archived {} returned rentals", moved);
+        } finally {
+            jobLeaseService.release(JOB);
+        }
+    }
+
+    /**
+     * @return total number of rentals moved
+     */
+    public int archive(LocalDate cutoff) {
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int moved = archivedRentalRepository.archiveReturnedBefore(cutoff, batchSize);
+            total += moved;
+            if (moved < batchSize) break;
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return total;
+    }
+}
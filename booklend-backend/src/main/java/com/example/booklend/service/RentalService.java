@@ -1,20 +1,28 @@
 // java
 package com.example.booklend.service;
 
+import com.example.booklend.cache.BookCache;
+import com.example.booklend.dto.CursorPage;
 import com.example.booklend.dto.RentalDto;
+import com.example.booklend.event.RentalChangedEvent;
 import com.example.booklend.mapper.RentalMapper;
 import com.example.booklend.model.Book;
 import com.example.booklend.model.Rental;
 import com.example.booklend.model.User;
+import com.example.booklend.repository.ArchivedRentalRepository;
 import com.example.booklend.repository.BookRepository;
 import com.example.booklend.repository.RentalRepository;
 import com.example.booklend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -23,12 +31,19 @@ import java.util.Optional;
 @Service
 public class RentalService {
     private static final int MAX_ACTIVE_RENTALS_PER_USER = 3;
+    private static final int MAX_SCROLL_SIZE = 100;
     @Autowired
     private RentalRepository rentalRepository;
     @Autowired
     private BookRepository bookRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private BookCache bookCache;
+    @Autowired
+    private ArchivedRentalRepository archivedRentalRepository;
 
     private UserDetails ensureUserDetails(UserDetails userDetails) {
         if (userDetails == null) {
@@ -45,27 +60,6 @@ public class RentalService {
         userDetails = ensureUserDetails(userDetails);
         if (userDetails == null) return ResponseEntity.status(401).body("Unauthorized");
 
-        User user = userRepository.findByEmail(userDetails.getUsername()).orElseThrow();
-        Optional<Book> bookOpt = bookRepository.findById(bookId);
-        if (bookOpt.isEmpty()) return ResponseEntity.notFound().build();
-        Book book = bookOpt.get();
-
-        // Prevent duplicate active rentals for the same user and book
-        if (rentalRepository.existsByUserIdAndBookIdAndReturnedFalse(user.getId(), bookId)) {
-            return ResponseEntity.badRequest().body("You already borrowed this book. Please return it before borrowing again.");
-        }
-
-        // Enforce maximum active rentals per user
-        long activeRentals = rentalRepository.countByUserIdAndReturnedFalse(user.getId());
-        if (activeRentals >= MAX_ACTIVE_RENTALS_PER_USER) {
-            return ResponseEntity.badRequest().body(String.format("You have reached the limit of %d active rentals.", MAX_ACTIVE_RENTALS_PER_USER));
-        }
-
-        if (book.getStockCount() <= 0) {
-            long borrowedCount = rentalRepository.countByBookIdAndReturnedFalse(bookId);
-            return ResponseEntity.badRequest().body(String.format("Book is out of stock. Currently borrowed by %d readers.", borrowedCount));
-        }
-
         LocalDate due;
         try {
             if (dueDate != null && !dueDate.isBlank()) {
@@ -79,36 +73,91 @@ public class RentalService {
             return ResponseEntity.badRequest().body("Invalid dueDate format. Use yyyy-MM-dd.");
         }
 
-        book.setStockCount(book.getStockCount() - 1);
-        bookRepository.save(book);
-
-        Rental rental = new Rental();
-        rental.setUser(user);
-        rental.setBook(book);
-        rental.setRentalDate(LocalDate.now());
-        rental.setDueDate(due);
-        rental.setReturned(false);
-        Rental saved = rentalRepository.save(rental);
+        // The authenticated principal is already the User entity; only fall back to a lookup otherwise
+        Long userId = userDetails instanceof User principal && principal.getId() != null
+                ? principal.getId()
+                : userRepository.findByEmail(userDetails.getUsername()).orElseThrow().getId();
 
-        RentalDto dto = RentalMapper.toDto(saved);
+        // Limit, stock and duplicate checks plus the insert happen in one guarded statement
+        List<Object[]> reserved;
+        try {
+            reserved = rentalRepository.reserve(userId, bookId, MAX_ACTIVE_RENTALS_PER_USER, LocalDate.now(), due);
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.badRequest().body("You already borrowed this book. Please return it before borrowing again.");
+        }
+        if (reserved.isEmpty()) return explainRejectedReservation(userId, bookId);
+
+        Object[] row = reserved.get(0);
+        eventPublisher.publishEvent(RentalChangedEvent.borrowed(bookId));
+
+        RentalDto dto = new RentalDto();
+        dto.setId(((Number) row[0]).longValue());
+        dto.setBookId(bookId);
+        dto.setBookTitle((String) row[1]);
+        dto.setBookAuthor((String) row[2]);
+        dto.setRentalDate(LocalDate.now());
+        dto.setDueDate(due);
+        dto.setReturned(false);
         return ResponseEntity.ok(dto);
     }
 
+    // Only runs when the guarded reservation matched nothing, so the success path stays a single round trip
+    private ResponseEntity<?> explainRejectedReservation(Long userId, Long bookId) {
+        Optional<Book> bookOpt = bookCache.get(bookId, () -> bookRepository.findById(bookId));
+        if (bookOpt.isEmpty()) return ResponseEntity.notFound().build();
+
+        if (rentalRepository.countByUserIdAndReturnedFalse(userId) >= MAX_ACTIVE_RENTALS_PER_USER) {
+            return ResponseEntity.badRequest().body(String.format("You have reached the limit of %d active rentals.", MAX_ACTIVE_RENTALS_PER_USER));
+        }
+
+        long borrowedCount = rentalRepository.countByBookIdAndReturnedFalse(bookId);
+        return ResponseEntity.badRequest().body(String.format("Book is out of stock. Currently borrowed by %d readers.", borrowedCount));
+    }
+
     public ResponseEntity<?> getMyRentals(UserDetails userDetails) {
         userDetails = ensureUserDetails(userDetails);
         if (userDetails == null) return ResponseEntity.status(401).body("Unauthorized");
 
         User user = userRepository.findByEmail(userDetails.getUsername()).orElseThrow();
-        List<Rental> rentals = rentalRepository.findByUserId(user.getId());
-        return ResponseEntity.ok(RentalMapper.toDtoList(rentals));
+        return ResponseEntity.ok(RentalMapper.merge(
+                rentalRepository.findDtosByUserId(user.getId()),
+                archivedRentalRepository.findDtosByUserId(user.getId())));
+    }
+
+    public ResponseEntity<?> scrollMyRentals(String cursor, int size, UserDetails userDetails) {
+        userDetails = ensureUserDetails(userDetails);
+        if (userDetails == null) return ResponseEntity.status(401).body("Unauthorized");
+        if (size < 1 || size > MAX_SCROLL_SIZE) {
+            return ResponseEntity.badRequest().body(String.format("size must be between 1 and %d", MAX_SCROLL_SIZE));
+        }
+        long afterId = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            CursorCodec.Position position = CursorCodec.decode(cursor, "id");
+            if (position == null) return ResponseEntity.badRequest().body("Invalid cursor");
+            afterId = position.id();
+        }
+
+        User user = userRepository.findByEmail(userDetails.getUsername()).orElseThrow();
+        // Take a page from each table and merge; the page can't contain more than size + 1 of either
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<RentalDto> rentals = RentalMapper.merge(
+                rentalRepository.findDtosByUserIdAfter(user.getId(), afterId, limit),
+                archivedRentalRepository.findDtosByUserIdAfter(user.getId(), afterId, limit));
+        String next = null;
+        if (rentals.size() > size) {
+            rentals = rentals.subList(0, size);
+            next = CursorCodec.encode("id", rentals.get(size - 1).getId(), null);
+        }
+        return ResponseEntity.ok(new CursorPage<>(rentals, next));
     }
 
+    @Transactional
     public ResponseEntity<?> renewBook(Long id, Integer days, String dueDate, UserDetails userDetails) {
         userDetails = ensureUserDetails(userDetails);
         if (userDetails == null) return ResponseEntity.status(401).body("Unauthorized");
 
         User user = userRepository.findByEmail(userDetails.getUsername()).orElseThrow();
-        Optional<Rental> rentalOpt = rentalRepository.findById(id);
+        Optional<Rental> rentalOpt = rentalRepository.findWithBookById(id);
         if (rentalOpt.isEmpty()) return ResponseEntity.notFound().build();
         Rental rental = rentalOpt.get();
 
@@ -137,17 +186,23 @@ public class RentalService {
             return ResponseEntity.badRequest().body("Due date cannot be before rental date");
         }
 
-        rental.setDueDate(newDue);
-        Rental saved = rentalRepository.save(rental);
-        return ResponseEntity.ok(RentalMapper.toDto(saved));
+        // Conditional update rather than save(): writing back the row read above would revert a
+        // return that committed in between and put the copy back in circulation twice
+        if (rentalRepository.renew(id, user.getId(), newDue) == 0) {
+            return ResponseEntity.badRequest().body("Cannot renew a returned book");
+        }
+        RentalDto dto = RentalMapper.toDto(rental);
+        dto.setDueDate(newDue);
+        return ResponseEntity.ok(dto);
     }
 
+    @Transactional
     public ResponseEntity<?> returnBook(Long id, UserDetails userDetails) {
         userDetails = ensureUserDetails(userDetails);
         if (userDetails == null) return ResponseEntity.status(401).body("Unauthorized");
 
         User user = userRepository.findByEmail(userDetails.getUsername()).orElseThrow();
-        Optional<Rental> rentalOpt = rentalRepository.findById(id);
+        Optional<Rental> rentalOpt = rentalRepository.findWithBookById(id);
         if (rentalOpt.isEmpty()) return ResponseEntity.notFound().build();
         Rental rental = rentalOpt.get();
 
@@ -159,12 +214,17 @@ public class RentalService {
             return ResponseEntity.badRequest().body("Rental already returned");
         }
 
-        rental.setReturned(true);
-        Book book = rental.getBook();
-        book.setStockCount(book.getStockCount() + 1);
-        bookRepository.save(book);
-        Rental saved = rentalRepository.save(rental);
+        // Only the request that flips returned from false to true gives the copy back
+        if (rentalRepository.markReturned(id) == 0) {
+            return ResponseEntity.badRequest().body("Rental already returned");
+        }
+        Long bookId = rental.getBook().getId();
+        userRepository.decrementActiveRentals(user.getId());
+        bookRepository.returnCopy(bookId);
+        eventPublisher.publishEvent(RentalChangedEvent.returned(bookId));
 
-        return ResponseEntity.ok(RentalMapper.toDto(saved));
+        RentalDto dto = RentalMapper.toDto(rental);
+        dto.setReturned(true);
+        return ResponseEntity.ok(dto);
     }
 }
@@ -0,0 +1,12 @@
+package com.example.booklend.service;
+
+/**
+ * A cover variant could not be produced right now because the generation pool is saturated or
+ * the job did not finish in time; the original is still there to serve instead.
+ */
+public class VariantsBusyException extends Exception {
+
+    public VariantsBusyException(String message) {
+        super(message);
+    }
+}
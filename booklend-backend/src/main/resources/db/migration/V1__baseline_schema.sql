@@ -0,0 +1,33 @@
+-- Schema as previously generated by Hibernate (ddl-auto=update). Written to be a no-op on
+-- databases that already have these tables, so existing installs can be baselined at 0 and
+-- run it safely.
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    role VARCHAR(255)
+);
+ALTER TABLE users ADD COLUMN IF NOT EXISTS active_rental_count INTEGER DEFAULT 0 NOT NULL;
+
+CREATE TABLE IF NOT EXISTS books (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title VARCHAR(255),
+    author VARCHAR(255),
+    genre VARCHAR(255),
+    summary VARCHAR(255),
+    stock_count INTEGER,
+    image_filename VARCHAR(255)
+);
+ALTER TABLE books ADD COLUMN IF NOT EXISTS borrowed_count BIGINT DEFAULT 0 NOT NULL;
+
+CREATE TABLE IF NOT EXISTS rentals (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id BIGINT REFERENCES users (id),
+    book_id BIGINT REFERENCES books (id),
+    rental_date DATE,
+    due_date DATE,
+    returned BOOLEAN NOT NULL
+);
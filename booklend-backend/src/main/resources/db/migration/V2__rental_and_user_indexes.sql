@@ -0,0 +1,26 @@
+-- Indexes for the hot rental and user lookups. The partial indexes only cover active
+-- rentals, so they stay small however much history the table accumulates.
+-- RentalQueryPlanTest checks that the repository queries actually use them.
+
+-- A user may hold at most one active rental per book; enforced by the database so that
+-- concurrent borrow requests can't both slip through.
+CREATE UNIQUE INDEX IF NOT EXISTS ux_rentals_active_user_book ON rentals (user_id, book_id) WHERE returned = false;
+
+-- findByUserIdAndReturnedFalse, countByUserIdAndReturnedFalse
+CREATE INDEX IF NOT EXISTS ix_rentals_active_user ON rentals (user_id) WHERE returned = false;
+-- countByBookIdAndReturnedFalse, counter reconciliation
+CREATE INDEX IF NOT EXISTS ix_rentals_active_book ON rentals (book_id) WHERE returned = false;
+-- Overdue scans
+CREATE INDEX IF NOT EXISTS ix_rentals_active_due_date ON rentals (due_date) WHERE returned = false;
+-- findByUserId and the keyset-scrolled rental history (user_id = ? and id > ? order by id)
+CREATE INDEX IF NOT EXISTS ix_rentals_user_id ON rentals (user_id, id);
+-- deleteByBookId when a book is removed
+CREATE INDEX IF NOT EXISTS ix_rentals_book ON rentals (book_id);
+
+-- Case-insensitive email lookups (registration duplicate check)
+CREATE INDEX IF NOT EXISTS ix_users_email_lower ON users (lower(email));
+
+-- Catalog filters and sorts (also declared on the Book entity)
+CREATE INDEX IF NOT EXISTS ix_books_genre ON books (genre);
+CREATE INDEX IF NOT EXISTS ix_books_title ON books (title);
+CREATE INDEX IF NOT EXISTS ix_books_author ON books (author);
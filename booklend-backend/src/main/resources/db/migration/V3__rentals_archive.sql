@@ -0,0 +1,22 @@
+-- Returned rentals older than rentals.archive.after-days are moved out of the hot rentals table
+-- by RentalArchiver, so active-rental queries never wade through history.
+
+ALTER TABLE rentals ADD COLUMN IF NOT EXISTS returned_date DATE;
+-- Return dates were not recorded before this migration; the due date is the closest stand-in
+UPDATE rentals SET returned_date = due_date WHERE returned = true AND returned_date IS NULL;
+
+-- Lets the archiver find its next batch without scanning active rentals
+CREATE INDEX IF NOT EXISTS ix_rentals_returned_date ON rentals (returned_date) WHERE returned = true;
+
+-- Cold storage: no foreign keys, so books and users can be removed without touching history
+CREATE TABLE IF NOT EXISTS rentals_archive (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT,
+    book_id BIGINT,
+    rental_date DATE,
+    due_date DATE,
+    returned_date DATE,
+    archived_at TIMESTAMP DEFAULT now() NOT NULL
+);
+CREATE INDEX IF NOT EXISTS ix_rentals_archive_user_id ON rentals_archive (user_id, id);
+CREATE INDEX IF NOT EXISTS ix_rentals_archive_book ON rentals_archive (book_id);
@@ -0,0 +1,11 @@
+-- Scheduled jobs that must run on one node at a time take a row here first (see JobLeaseService).
+CREATE TABLE IF NOT EXISTS job_leases (
+    name VARCHAR(64) PRIMARY KEY,
+    owner VARCHAR(128) NOT NULL,
+    locked_until TIMESTAMP NOT NULL
+);
+
+-- The overdue scan walks active rentals in (due_date, id) order; this index serves both the
+-- filter and the order, so the scan streams without a sort.
+CREATE INDEX IF NOT EXISTS ix_rentals_active_due_date_id ON rentals (due_date, id) WHERE returned = false;
+DROP INDEX IF EXISTS ix_rentals_active_due_date;
@@ -0,0 +1,3 @@
+-- Cover files are shared by every book with the same image bytes; deleting a book counts the
+-- remaining references before removing the file (see CoverGarbageCollector).
+CREATE INDEX IF NOT EXISTS ix_books_image_filename ON books (image_filename);
@@ -0,0 +1,5 @@
+-- Catalog search matches a case-insensitive prefix: lower(title) LIKE 'abc%' OR lower(author)
+-- LIKE 'abc%'. Only an index on the same expression can serve that, and text_pattern_ops lets
+-- the LIKE prefix become a range scan whatever the database collation. Checked by BookQueryPlanTest.
+CREATE INDEX IF NOT EXISTS ix_books_title_lower_prefix ON books (lower(title) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS ix_books_author_lower_prefix ON books (lower(author) text_pattern_ops);
@@ -0,0 +1,5 @@
+-- Cursor scrolling by title seeks with (title, id) > (:title, :id) ORDER BY title, id; a
+-- composite index serves the seek and the order in one range scan. It also covers everything
+-- the single-column title index did.
+CREATE INDEX IF NOT EXISTS ix_books_title_id ON books (title, id);
+DROP INDEX IF EXISTS ix_books_title;
@@ -1,11 +1,12 @@
+-- Development sample data, only on the dev profile's Flyway locations. Re-applied whenever this
+-- file changes, replacing all books, rentals and non-admin users.
 
-ALTER TABLE rentals DISABLE TRIGGER ALL;
-
+-- Children first, so the foreign keys hold without disabling triggers; the archive has no foreign
+-- keys and would otherwise keep rows for books and users that are gone
+DELETE FROM rentals_archive;
 DELETE FROM rentals;
 DELETE FROM books;
-DELETE FROM users WHERE role != 'ADMIN'; 
-
-ALTER TABLE rentals ENABLE TRIGGER ALL;
+DELETE FROM users WHERE role != 'ADMIN';
 
 INSERT INTO users (email, password, first_name, last_name, role) VALUES
 ('john.doe@booklend.com', '$2a$10$ukD4QfteKORB6VYC1p.N.uEwqv70I911nEIolCqHhWor5WwCkLHYe', 'John', 'Doe', 'USER'),
@@ -133,6 +134,10 @@ INSERT INTO rentals (user_id, book_id, rental_date, due_date, returned) VALUES
 INSERT INTO rentals (user_id, book_id, rental_date, due_date, returned) VALUES
 ((SELECT id FROM users WHERE email = 'charlie.davis@booklend.com' LIMIT 1), (SELECT id FROM books WHERE title = 'Moby Dick' LIMIT 1), '2026-01-08', '2026-01-22', false);
 
+-- Keep the per-user and per-book rental counters in step with the seeded rentals
+UPDATE users u SET active_rental_count = (SELECT COUNT(*) FROM rentals r WHERE r.user_id = u.id AND r.returned = false);
+UPDATE books b SET borrowed_count = (SELECT COUNT(*) FROM rentals r WHERE r.book_id = b.id AND r.returned = false);
+
 SELECT '--- USERS INSERTED ---' as status;
 SELECT COUNT(*) as user_count FROM users;
 
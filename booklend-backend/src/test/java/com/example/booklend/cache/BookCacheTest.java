@@ -0,0 +1,103 @@
+package com.example.booklend.cache;
+
+import com.example.booklend.event.RentalChangedEvent;
+import com.example.booklend.model.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookCacheTest {
+
+    private CatalogVersion catalogVersion;
+    private LocalCacheInvalidationBus bus;
+    private BookCache cache;
+    private AtomicInteger loads;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        bus = new LocalCacheInvalidationBus();
+        catalogVersion = new CatalogVersion(bus);
+        cache = newCache(catalogVersion);
+        loads = new AtomicInteger();
+        book = new Book("Dune", "Frank Herbert", "Sci-Fi", "Spice", 4, null);
+        book.setId(7L);
+    }
+
+    private BookCache newCache(CatalogVersion version) {
+        return new BookCache(version, bus, new SimpleMeterRegistry(), Duration.ofMinutes(10), 100);
+    }
+
+    private Supplier<Optional<Book>> loader(Book result) {
+        return () -> {
+            loads.incrementAndGet();
+            return Optional.ofNullable(result);
+        };
+    }
+
+    @Test
+    @DisplayName("Should load a book once and serve repeats from the cache")
+    void testGet_CachesBook() {
+        cache.get(7L, loader(book));
+        Optional<Book> second = cache.get(7L, loader(book));
+
+        assertSame(book, second.orElseThrow());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should reload after a borrow changes the book's version")
+    void testGet_ReloadsAfterRental() {
+        cache.get(7L, loader(book));
+
+        catalogVersion.onRentalChanged(RentalChangedEvent.borrowed(7L));
+        cache.get(7L, loader(book));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should not cache a missing book")
+    void testGet_MissingBookNotCached() {
+        cache.get(8L, loader(null));
+        cache.get(8L, loader(null));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should drop the entry on other nodes sharing the invalidation bus")
+    void testEvict_PropagatesThroughBus() {
+        BookCache otherNode = newCache(new CatalogVersion(bus));
+        otherNode.get(7L, loader(book));
+
+        cache.evict(7L);
+        otherNode.get(7L, loader(book));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should drop entries published on the bus by another node")
+    void testSubscription_InvalidatesFromBus() {
+        cache.get(7L, loader(book));
+        cache.get(8L, loader(book));
+
+        // A broker may hand the id back as another Number type
+        bus.publish(BookCache.NAME, 7);
+        cache.get(7L, loader(book));
+        cache.get(8L, loader(book));
+        bus.publish(BookCache.NAME, null);
+        cache.get(8L, loader(book));
+
+        assertEquals(4, loads.get());
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.booklend.cache;
+
+import com.example.booklend.event.RentalChangedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogVersionTest {
+
+    @Test
+    @DisplayName("Should move every node sharing the bus on when one node commits a change")
+    void testCommittedChange_ReachesOtherNodes() {
+        LocalCacheInvalidationBus bus = new LocalCacheInvalidationBus();
+        CatalogVersion node = new CatalogVersion(bus);
+        CatalogVersion otherNode = new CatalogVersion(bus);
+        String before = otherNode.catalogEtag();
+        String bookBefore = otherNode.bookEtag(3L);
+
+        node.onRentalChanged(RentalChangedEvent.borrowed(3L));
+
+        assertNotEquals(before, otherNode.catalogEtag());
+        assertNotEquals(bookBefore, otherNode.bookEtag(3L));
+    }
+
+    @Test
+    @DisplayName("Should never hand out the same ETag as another node, even at the same version number")
+    void testEtags_DifferPerNode() {
+        CatalogVersion node = new CatalogVersion(new LocalCacheInvalidationBus());
+        CatalogVersion otherNode = new CatalogVersion(new LocalCacheInvalidationBus());
+
+        assertNotEquals(node.catalogEtag(42L), otherNode.catalogEtag(42L));
+        assertFalse(CatalogVersion.matches(node.catalogEtag(42L), otherNode.catalogEtag(42L)));
+    }
+}
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -68,6 +69,38 @@ class BookControllerIntegrationTest {
                 .andExpect(jsonPath("$[1].author", is("Jane Austen")));
     }
 
+    @Test
+    @DisplayName("Should return 304 when the catalog ETag is sent back unchanged")
+    void testListBooks_NotModified() throws Exception {
+        bookRepository.save(new Book("The Hobbit", "J.R.R. Tolkien", "Fantasy", "A fantasy adventure", 10, "hobbit.jpg"));
+        String etag = mockMvc.perform(get("/api/books"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/books").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("Should aggregate titles and stock per genre")
+    void testGenres_GroupedCounts() throws Exception {
+        bookRepository.save(new Book("The Hobbit", "J.R.R. Tolkien", "Fantasy", "A fantasy adventure", 10, "hobbit.jpg"));
+        bookRepository.save(new Book("Mistborn", "Brandon Sanderson", "Fantasy", "Heists and magic", 0, "mistborn.jpg"));
+        bookRepository.save(new Book("Pride and Prejudice", "Jane Austen", "Romance", "Classic romance", 5, "pride.jpg"));
+
+        mockMvc.perform(get("/api/books/genres"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].genre", is("Fantasy")))
+                .andExpect(jsonPath("$[0].titles", is(2)))
+                .andExpect(jsonPath("$[0].totalStock", is(10)))
+                .andExpect(jsonPath("$[0].borrowed", is(0)))
+                .andExpect(jsonPath("$[1].genre", is("Romance")))
+                .andExpect(jsonPath("$[1].availabilityRatio", is(1.0)));
+    }
+
     @Test
     @DisplayName("Should return specific book by ID")
     void testGetBook_Success() throws Exception {
@@ -103,4 +136,39 @@ class BookControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.stockCount", is(0)));
     }
+
+    @Test
+    @DisplayName("Should return filtered and sorted page when page parameter is given")
+    void testSearchBooks_Paged() throws Exception {
+        bookRepository.save(new Book("Dune", "Frank Herbert", "Sci-Fi", "Desert planet", 4, "dune.jpg"));
+        bookRepository.save(new Book("Hyperion", "Dan Simmons", "Sci-Fi", "Pilgrims", 0, "hyperion.jpg"));
+        bookRepository.save(new Book("Foundation", "Isaac Asimov", "Sci-Fi", "Psychohistory", 2, "foundation.jpg"));
+        bookRepository.save(new Book("Emma", "Jane Austen", "Romance", "Matchmaking", 3, "emma.jpg"));
+
+        mockMvc.perform(get("/api/books")
+                        .param("page", "0")
+                        .param("size", "1")
+                        .param("sort", "title,desc")
+                        .param("genre", "Sci-Fi")
+                        .param("inStockOnly", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", is(2)))
+                .andExpect(jsonPath("$.totalPages", is(2)))
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].title", is("Foundation")));
+    }
+
+    @Test
+    @DisplayName("Should match title or author prefix case-insensitively")
+    void testSearchBooks_TextQuery() throws Exception {
+        bookRepository.save(new Book("Dune", "Frank Herbert", "Sci-Fi", "Desert planet", 4, "dune.jpg"));
+        bookRepository.save(new Book("Emma", "Jane Austen", "Romance", "Matchmaking", 3, "emma.jpg"));
+
+        mockMvc.perform(get("/api/books")
+                        .param("page", "0")
+                        .param("q", "jane"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", is(1)))
+                .andExpect(jsonPath("$.content[0].title", is("Emma")));
+    }
 }
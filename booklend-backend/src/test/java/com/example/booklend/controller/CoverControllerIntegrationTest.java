@@ -0,0 +1,79 @@
+package com.example.booklend.controller;
+
+import com.example.booklend.service.FileStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+class CoverControllerIntegrationTest {
+
+    private static final String CONTENT = "0123456789abcdef";
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    private MockMvc mockMvc;
+    private String filename;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        filename = fileStorageService.store(new MockMultipartFile("image", "cover.txt", "text/plain",
+                CONTENT.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @DisplayName("Should serve covers as immutable with the file name as ETag")
+    void testCover_ImmutableCaching() throws Exception {
+        mockMvc.perform(get("/covers/" + filename))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + filename + "\""))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(content().string(CONTENT));
+
+        mockMvc.perform(get("/covers/" + filename).header(HttpHeaders.IF_NONE_MATCH, "\"" + filename + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("Should answer single byte ranges with 206 and reject unsatisfiable ones")
+    void testCover_Ranges() throws Exception {
+        mockMvc.perform(get("/covers/" + filename).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/16"))
+                .andExpect(content().string("2345"));
+
+        mockMvc.perform(get("/covers/" + filename).header(HttpHeaders.RANGE, "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("def"));
+
+        mockMvc.perform(get("/covers/" + filename).header(HttpHeaders.RANGE, "bytes=100-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */16"));
+    }
+
+    @Test
+    @DisplayName("Should return 404 for missing or malformed cover names")
+    void testCover_NotFound() throws Exception {
+        mockMvc.perform(get("/covers/does-not-exist.jpg")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/covers/..%2Fapplication.properties")).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.booklend.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import static com.example.booklend.repository.QueryPlans.assertUsesIndex;
+import static com.example.booklend.repository.QueryPlans.planOf;
+
+/**
+ * Guards the catalog search and scrolling indexes: the SQL emitted by the catalog repository methods is
+ * EXPLAINed against an ANALYZEd table of realistic size (see {@link RentalQueryPlanTest}).
+ */
+@SpringBootTest(properties = QueryPlans.INSPECTOR_PROPERTY)
+@Transactional
+class BookQueryPlanTest {
+
+    private static final int BOOKS = 20_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @BeforeEach
+    void setUp() {
+        // Hex titles and authors spread prefixes evenly: a three-character prefix matches ~5 books
+        jdbcTemplate.update("INSERT INTO books (title, author, genre, summary, stock_count) "
+                + "SELECT md5('title' || g), md5('author' || g), 'Genre ' || (g % 2), 'Summary', g % 4 "
+                + "FROM generate_series(1, ?) g", BOOKS);
+        jdbcTemplate.execute("ANALYZE books");
+    }
+
+    @Test
+    @DisplayName("Should match a title or author prefix through the lower(...) prefix indexes")
+    void testSearchByPrefix() {
+        String plan = planOf(jdbcTemplate,
+                () -> bookRepository.searchWithBorrowedCount("Genre 1", false, "ABC", PageRequest.of(0, 20)),
+                "Genre 1", "Genre 1", false, "abc%", "abc%", "abc%", 20);
+
+        assertUsesIndex(plan, "ix_books_title_lower_prefix");
+        assertUsesIndex(plan, "ix_books_author_lower_prefix");
+    }
+
+    @Test
+    @DisplayName("Should seek the next title page through ix_books_title_id")
+    void testScrollByTitleAfter() {
+        String plan = planOf(jdbcTemplate,
+                () -> bookRepository.scrollByTitle("8", 0L, 20),
+                "8", 0L, 20);
+
+        assertUsesIndex(plan, "ix_books_title_id");
+    }
+}
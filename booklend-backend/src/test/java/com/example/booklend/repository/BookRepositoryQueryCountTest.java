@@ -0,0 +1,209 @@
+package com.example.booklend.repository;
+
+import com.example.booklend.dto.RentalDto;
+import com.example.booklend.model.Book;
+import com.example.booklend.model.Rental;
+import com.example.booklend.model.Role;
+import com.example.booklend.model.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class BookRepositoryQueryCountTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private User reader;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        reader = new User();
+        reader.setEmail("counter-" + System.nanoTime() + "@test.com");
+        reader.setPassword("secret");
+        reader.setFirstName("Query");
+        reader.setLastName("Counter");
+        reader.setRole(Role.USER);
+        userRepository.save(reader);
+    }
+
+    private void addBorrowedBooks(int count) {
+        for (int i = 0; i < count; i++) {
+            Book book = bookRepository.save(new Book("Book " + i, "Author", "Genre", "Summary", 5, null));
+            Rental rental = new Rental();
+            rental.setUser(reader);
+            rental.setBook(book);
+            rental.setRentalDate(LocalDate.now());
+            rental.setDueDate(LocalDate.now().plusWeeks(2));
+            rental.setReturned(false);
+            rentalRepository.save(rental);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private long statementsFor(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    @DisplayName("Should load catalog with borrowed counts in a constant number of statements")
+    void testFindAllWithBorrowedCount_ConstantStatements() {
+        addBorrowedBooks(3);
+        long small = statementsFor(() -> bookRepository.findAllWithBorrowedCount());
+
+        addBorrowedBooks(30);
+        long large = statementsFor(() -> bookRepository.findAllWithBorrowedCount());
+
+        assertEquals(1, small);
+        assertEquals(small, large);
+    }
+
+    @Test
+    @DisplayName("Should load a reader's rental history in a constant number of statements")
+    void testFindDtosByUserId_ConstantStatements() {
+        addBorrowedBooks(3);
+        long small = statementsFor(() -> assertEquals(3, rentalRepository.findDtosByUserId(reader.getId()).size()));
+
+        addBorrowedBooks(30);
+        long large = statementsFor(() -> {
+            List<RentalDto> rentals = rentalRepository.findDtosByUserId(reader.getId());
+            assertEquals(33, rentals.size());
+            assertEquals("Book 0", rentals.get(0).getBookTitle());
+        });
+
+        assertEquals(1, small);
+        assertEquals(small, large);
+    }
+
+    @Test
+    @DisplayName("Should load a rental together with its book in one statement")
+    void testFindWithBookById_SingleStatement() {
+        addBorrowedBooks(1);
+        Long rentalId = rentalRepository.findDtosByUserId(reader.getId()).get(0).getId();
+        entityManager.clear();
+
+        long statements = statementsFor(() -> {
+            Rental rental = rentalRepository.findWithBookById(rentalId).orElseThrow();
+            assertEquals("Book 0", rental.getBook().getTitle());
+            assertEquals(reader.getId(), rental.getUser().getId());
+        });
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    @DisplayName("Should populate borrowed count from active rentals only")
+    void testFindAllWithBorrowedCount_CountsActiveRentals() {
+        // Rentals saved directly bypass the reservation statement, so let the reconciler catch up
+        addBorrowedBooks(2);
+        bookRepository.reconcileBorrowedCounts();
+        entityManager.clear();
+
+        List<Book> books = bookRepository.findAllWithBorrowedCount();
+
+        assertFalse(books.isEmpty());
+        books.stream()
+                .filter(b -> b.getTitle().startsWith("Book "))
+                .forEach(b -> assertEquals(1L, b.getBorrowedCount()));
+    }
+
+    @Test
+    @DisplayName("Should load single book with borrowed count in one statement")
+    void testFindById_SingleStatement() {
+        Book book = bookRepository.save(new Book("Single", "Author", "Genre", "Summary", 2, null));
+        entityManager.flush();
+        entityManager.clear();
+
+        long statements = statementsFor(() -> {
+            Optional<Book> found = bookRepository.findById(book.getId());
+            assertTrue(found.isPresent());
+            assertEquals(0L, found.get().getBorrowedCount());
+        });
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    @DisplayName("Should repair a drifted borrowed counter and leave correct ones alone")
+    void testReconcileBorrowedCounts_RepairsDrift() {
+        addBorrowedBooks(1);
+        bookRepository.reconcileBorrowedCounts();
+        Book drifted = bookRepository.save(new Book("Drifted", "Author", "Genre", "Summary", 2, null));
+        entityManager.flush();
+        entityManager.createNativeQuery("update books set borrowed_count = 4 where id = :id")
+                .setParameter("id", drifted.getId())
+                .executeUpdate();
+        entityManager.clear();
+
+        int repaired = bookRepository.reconcileBorrowedCounts();
+        entityManager.clear();
+
+        assertEquals(1, repaired);
+        assertEquals(0L, bookRepository.findById(drifted.getId()).orElseThrow().getBorrowedCount());
+    }
+
+    @Test
+    @DisplayName("Should never write the borrowed counter from a stale entity or an admin edit")
+    void testBorrowedCount_NotClobbered() {
+        Book book = bookRepository.save(new Book("Edited", "Author", "Genre", "Summary", 2, null));
+        entityManager.flush();
+        entityManager.createNativeQuery("update books set borrowed_count = 3 where id = :id")
+                .setParameter("id", book.getId())
+                .executeUpdate();
+
+        book.setSummary("Stale edit");
+        entityManager.flush();
+        bookRepository.updateDetails(book.getId(), "Renamed", "Author", "Genre", "Summary", 2);
+        entityManager.clear();
+
+        Book reloaded = bookRepository.findById(book.getId()).orElseThrow();
+        assertEquals("Renamed", reloaded.getTitle());
+        assertEquals(3L, reloaded.getBorrowedCount());
+    }
+
+    @Test
+    @DisplayName("Should never write the active rental counter from a stale user")
+    void testActiveRentalCount_NotClobbered() {
+        entityManager.flush();
+        entityManager.createNativeQuery("update users set active_rental_count = 2 where id = :id")
+                .setParameter("id", reader.getId())
+                .executeUpdate();
+
+        reader.setPassword("rehashed");
+        userRepository.save(reader);
+        entityManager.flush();
+        entityManager.clear();
+
+        User reloaded = userRepository.findById(reader.getId()).orElseThrow();
+        assertEquals("rehashed", reloaded.getPassword());
+        assertEquals(2, reloaded.getActiveRentalCount());
+    }
+}
@@ -201,4 +201,21 @@ class BookRepositoryTest {
         assertNull(book.getGenre());
         assertNull(book.getSummary());
     }
+
+    @Test
+    @DisplayName("Should scroll past books sharing a title without skipping or repeating any")
+    void testScrollByTitle_TiesBrokenById() {
+        
+        Book first = bookRepository.save(new Book("Zzz Same Title", "Author", "Genre", "Summary", 1, null));
+        Book second = bookRepository.save(new Book("Zzz Same Title", "Author", "Genre", "Summary", 1, null));
+        Book third = bookRepository.save(new Book("Zzzz Later Title", "Author", "Genre", "Summary", 1, null));
+
+        
+        List<Book> page = bookRepository.scrollByTitle(first.getTitle(), first.getId(), 10);
+
+        
+        List<Long> ids = page.stream().map(Book::getId).toList();
+        assertFalse(ids.contains(first.getId()));
+        assertEquals(List.of(second.getId(), third.getId()), ids.subList(0, 2));
+    }
 }
@@ -0,0 +1,65 @@
+package com.example.booklend.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Support for the query plan tests: captures the SQL a repository method emits and EXPLAINs it
+ * with the parameters it was called with. Tests register {@link Capture} through
+ * {@link #INSPECTOR_PROPERTY}.
+ */
+final class QueryPlans {
+
+    static final String INSPECTOR_PROPERTY = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + "com.example.booklend.repository.QueryPlans$Capture";
+
+    private QueryPlans() {
+    }
+
+    /**
+     * Records every statement Hibernate prepares on the current thread.
+     */
+    public static class Capture implements StatementInspector {
+        private static final ThreadLocal<List<String>> captured = ThreadLocal.withInitial(ArrayList::new);
+
+        @Override
+        public String inspect(String sql) {
+            captured.get().add(sql);
+            return sql;
+        }
+
+        static List<String> drain() {
+            List<String> sql = List.copyOf(captured.get());
+            captured.get().clear();
+            return sql;
+        }
+    }
+
+    /**
+     * Plans the first SELECT the given repository call emitted, with the parameters it was called with.
+     */
+    static String planOf(JdbcTemplate jdbcTemplate, Runnable repositoryCall, Object... parameters) {
+        Capture.drain();
+        repositoryCall.run();
+        String sql = Capture.drain().stream()
+                .filter(s -> s.trim().toLowerCase().startsWith("select"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No SELECT was emitted"));
+        long placeholders = sql.chars().filter(c -> c == '?').count();
+        assertEquals(parameters.length, placeholders, "Parameters for: " + sql);
+        List<String> lines = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parameters);
+        return sql + "\n" + String.join("\n", lines);
+    }
+
+    static void assertUsesIndex(String plan, String... indexes) {
+        for (String index : indexes) {
+            if (plan.contains(" " + index)) return;
+        }
+        fail("Expected one of " + List.of(indexes) + " in plan:\n" + plan);
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.booklend.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static com.example.booklend.repository.QueryPlans.assertUsesIndex;
+import static com.example.booklend.repository.QueryPlans.planOf;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards the indexes from the V2-V4 migrations: each test runs a hot repository method, captures
+ * the SQL Hibernate emitted for it and checks that Postgres plans it with the intended index.
+ * The tables are filled with a realistic spread of rows (mostly returned history, a thin layer of
+ * active rentals) and ANALYZEd, so the planner weighs the indexes against a sequential scan the
+ * same way it would in production.
+ */
+@SpringBootTest(properties = QueryPlans.INSPECTOR_PROPERTY)
+@Transactional
+class RentalQueryPlanTest {
+
+    private static final int USERS = 2_000;
+    private static final int BOOKS = 1_000;
+    private static final int RENTALS = 60_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private long userId;
+    private long bookId;
+    private String email;
+
+    @BeforeEach
+    void setUp() {
+        String tag = "plan-" + System.nanoTime();
+        jdbcTemplate.update("INSERT INTO users (email, password, first_name, last_name, role) "
+                + "SELECT ? || '-' || g || '@test.com', 'secret', 'Plan', 'Reader', 'USER' "
+                + "FROM generate_series(0, ?) g", tag, USERS - 1);
+        jdbcTemplate.update("INSERT INTO books (title, author, genre, summary, stock_count) "
+                + "SELECT ? || ' ' || g, 'Author ' || (g % 200), 'Genre ' || (g % 20), 'Summary', 5 "
+                + "FROM generate_series(0, ?) g", tag, BOOKS - 1);
+        long firstUser = jdbcTemplate.queryForObject("SELECT min(id) FROM users WHERE email LIKE ?", Long.class, tag + "-%");
+        long firstBook = jdbcTemplate.queryForObject("SELECT min(id) FROM books WHERE title LIKE ?", Long.class, tag + " %");
+
+        // 30 rentals per user and 60 per book; one in 60 is still active, and no user holds the
+        // same book twice among the active ones (ux_rentals_active_user_book)
+        jdbcTemplate.update("INSERT INTO rentals (user_id, book_id, rental_date, due_date, returned, returned_date) "
+                + "SELECT ? + (g / 30) % ?, ? + g % ?, current_date - 14 - g % 400, current_date - g % 400, "
+                + "g % 60 <> 0, CASE WHEN g % 60 <> 0 THEN current_date - g % 400 END "
+                + "FROM generate_series(1, ?) g", firstUser, USERS, firstBook, BOOKS, RENTALS);
+        jdbcTemplate.execute("ANALYZE users");
+        jdbcTemplate.execute("ANALYZE books");
+        jdbcTemplate.execute("ANALYZE rentals");
+
+        // g = 60: an active rental
+        userId = firstUser + 2;
+        bookId = firstBook + 60;
+        email = tag + "-2@test.com";
+    }
+
+    @Test
+    @DisplayName("Should find a user's rentals through ix_rentals_user_id")
+    void testFindByUserId() {
+        String plan = planOf(jdbcTemplate, () -> rentalRepository.findByUserId(userId), userId);
+
+        assertUsesIndex(plan, "ix_rentals_user_id");
+    }
+
+    @Test
+    @DisplayName("Should find a user's active rentals through the active-rental indexes")
+    void testFindByUserIdAndReturnedFalse() {
+        String plan = planOf(jdbcTemplate, () -> rentalRepository.findByUserIdAndReturnedFalse(userId), userId);
+
+        assertUsesIndex(plan, "ix_rentals_active_user", "ux_rentals_active_user_book");
+    }
+
+    @Test
+    @DisplayName("Should check for a duplicate active rental through ux_rentals_active_user_book")
+    void testExistsByUserIdAndBookIdAndReturnedFalse() {
+        String plan = planOf(jdbcTemplate, () -> assertTrue(rentalRepository.existsByUserIdAndBookIdAndReturnedFalse(userId, bookId)),
+                userId, bookId, 1);
+
+        assertUsesIndex(plan, "ux_rentals_active_user_book");
+    }
+
+    @Test
+    @DisplayName("Should count a user's active rentals through the active-rental indexes")
+    void testCountByUserIdAndReturnedFalse() {
+        String plan = planOf(jdbcTemplate, () -> rentalRepository.countByUserIdAndReturnedFalse(userId), userId);
+
+        assertUsesIndex(plan, "ix_rentals_active_user", "ux_rentals_active_user_book");
+    }
+
+    @Test
+    @DisplayName("Should count a book's active rentals through ix_rentals_active_book")
+    void testCountByBookIdAndReturnedFalse() {
+        String plan = planOf(jdbcTemplate, () -> rentalRepository.countByBookIdAndReturnedFalse(bookId), bookId);
+
+        assertUsesIndex(plan, "ix_rentals_active_book");
+    }
+
+    @Test
+    @DisplayName("Should load a book's rentals for deletion through ix_rentals_book")
+    void testDeleteByBookId() {
+        String plan = planOf(jdbcTemplate, () -> rentalRepository.deleteByBookId(bookId), bookId);
+
+        assertUsesIndex(plan, "ix_rentals_book");
+    }
+
+    @Test
+    @DisplayName("Should scroll a user's rental history through ix_rentals_user_id")
+    void testFindByUserIdAndIdGreaterThanOrderByIdAsc() {
+        String plan = planOf(jdbcTemplate, () -> rentalRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(userId, 0L, PageRequest.of(0, 50)),
+                userId, 0L, 50);
+
+        assertUsesIndex(plan, "ix_rentals_user_id");
+    }
+
+    @Test
+    @DisplayName("Should walk overdue rentals in order through ix_rentals_active_due_date_id")
+    void testStreamOverdue() {
+        LocalDate today = LocalDate.now();
+
+        String plan = planOf(jdbcTemplate, () -> {
+            try (Stream<?> overdue = rentalRepository.streamOverdue(today)) {
+                overdue.forEach(r -> {});
+            }
+        }, today);
+
+        assertUsesIndex(plan, "ix_rentals_active_due_date_id");
+    }
+
+    @Test
+    @DisplayName("Should check for a registered email through ix_users_email_lower")
+    void testExistsByEmailIgnoreCase() {
+        String plan = planOf(jdbcTemplate, () -> assertTrue(userRepository.existsByEmailIgnoreCase(email.toUpperCase())), email.toUpperCase());
+
+        assertUsesIndex(plan, "ix_users_email_lower");
+    }
+
+    @Test
+    @DisplayName("Should find a user by email through the unique email index")
+    void testFindByEmail() {
+        String plan = planOf(jdbcTemplate, () -> assertTrue(userRepository.findByEmail(email).isPresent()), email);
+
+        assertUsesIndex(plan, "users_email_key");
+    }
+}
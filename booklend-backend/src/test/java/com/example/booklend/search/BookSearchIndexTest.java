@@ -0,0 +1,156 @@
+package com.example.booklend.search;
+
+import com.example.booklend.dto.BookSearchHit;
+import com.example.booklend.event.CatalogChangedEvent;
+import com.example.booklend.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex();
+        index.index(new Book(1L, "The Hobbit", "J.R.R. Tolkien", "Fantasy", "A hobbit goes on an adventure", 5, null));
+        index.index(new Book(2L, "The Lord of the Rings", "J.R.R. Tolkien", "Fantasy", "The one ring", 3, null));
+        index.index(new Book(3L, "Dune", "Frank Herbert", "Sci-Fi", "Spice and sandworms on a desert planet", 4, null));
+        index.index(new Book(4L, "Les Misérables", "Victor Hugo", "Classic", "Redemption in France", 2, null));
+    }
+
+    @Test
+    @DisplayName("Should find books by exact term")
+    void testSearch_ExactTerm() {
+
+        List<BookSearchHit> hits = index.search("dune", 10);
+
+
+        assertEquals(1, hits.size());
+        assertEquals(3L, hits.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Should match prefixes case-insensitively")
+    void testSearch_Prefix() {
+
+        List<BookSearchHit> hits = index.search("TOLK", 10);
+
+
+        assertEquals(2, hits.size());
+    }
+
+    @Test
+    @DisplayName("Should fold accents")
+    void testSearch_AccentFolding() {
+
+        List<BookSearchHit> hits = index.search("miserables", 10);
+
+
+        assertEquals(1, hits.size());
+        assertEquals(4L, hits.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Should tolerate a typo")
+    void testSearch_Typo() {
+
+        List<BookSearchHit> hits = index.search("tolkein", 10);
+
+
+        assertEquals(2, hits.size());
+    }
+
+    @Test
+    @DisplayName("Should require every query term to match")
+    void testSearch_AllTermsRequired() {
+
+        List<BookSearchHit> hits = index.search("tolkien ring", 10);
+
+
+        assertEquals(1, hits.size());
+        assertEquals(2L, hits.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Should rank title matches above summary matches")
+    void testSearch_FieldWeighting() {
+
+        List<BookSearchHit> hits = index.search("hobbit", 10);
+
+
+        assertEquals(1L, hits.get(0).getId());
+        assertTrue(hits.get(0).getScore() >= BookSearchIndex.TITLE_WEIGHT);
+    }
+
+    @Test
+    @DisplayName("Should reflect updates and deletions")
+    void testIndex_UpdateAndDelete() {
+
+        index.onCatalogChanged(CatalogChangedEvent.updated(
+                new Book(3L, "Dune Messiah", "Frank Herbert", "Sci-Fi", "Sequel", 4, null)));
+        index.onCatalogChanged(CatalogChangedEvent.deleted(1L));
+
+
+        assertEquals("Dune Messiah", index.search("dune", 10).get(0).getTitle());
+        assertTrue(index.search("spice", 10).isEmpty());
+        assertTrue(index.search("hobbit", 10).isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    @DisplayName("Should honour the result limit")
+    void testSearch_Limit() {
+
+        List<BookSearchHit> hits = index.search("the", 1);
+
+
+        assertEquals(1, hits.size());
+    }
+
+    @Test
+    @DisplayName("Should keep the most common expansions of a short leading term")
+    void testSearch_LeadingTermRankedByFrequency() {
+        indexPrefixedTitles(BookSearchIndex.MAX_EXPANSIONS + 100);
+        index.index(new Book(2001L, "Pzz", "Anon", "Misc", "", 1, null));
+        index.index(new Book(2002L, "Pzz", "Anon", "Misc", "", 1, null));
+
+        List<BookSearchHit> hits = index.search("p", 10_000);
+
+        assertTrue(hits.stream().anyMatch(h -> h.getId() == 2001L));
+        assertTrue(hits.stream().anyMatch(h -> h.getId() == 2002L));
+    }
+
+    @Test
+    @DisplayName("Should not truncate the expansions of a later query term")
+    void testSearch_LaterTermNotTruncated() {
+        indexPrefixedTitles(BookSearchIndex.MAX_EXPANSIONS + 100);
+        index.index(new Book(2001L, "Zeta Pzz", "Anon", "Misc", "", 1, null));
+
+        List<BookSearchHit> hits = index.search("zeta p", 10);
+
+        assertEquals(1, hits.size());
+        assertEquals(2001L, hits.get(0).getId());
+    }
+
+    // One book per distinct term "paa", "pab", ..., all sorting before "pz"
+    private void indexPrefixedTitles(int count) {
+        for (int i = 0; i < count; i++) {
+            String term = "p" + (char) ('a' + i / 26 % 25) + (char) ('a' + i % 26);
+            index.index(new Book(1000L + i, term, "Anon", "Misc", "", 1, null));
+        }
+    }
+
+    @Test
+    @DisplayName("Should compute prefix edit distance")
+    void testPrefixDistance() {
+        assertEquals(0, BookSearchIndex.prefixDistance("tolk", "tolkien", 1));
+        assertEquals(1, BookSearchIndex.prefixDistance("tolkein", "tolkien", 2));
+        assertEquals(2, BookSearchIndex.prefixDistance("zzzz", "tolkien", 1));
+    }
+}
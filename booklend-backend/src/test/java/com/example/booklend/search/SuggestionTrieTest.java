@@ -0,0 +1,128 @@
+package com.example.booklend.search;
+
+import com.example.booklend.dto.BookSuggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestionTrieTest {
+
+    private SuggestionTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new SuggestionTrie();
+        trie.update("The Hobbit", BookSuggestion.Type.TITLE, 1, 2);
+        trie.update("The Hunger Games", BookSuggestion.Type.TITLE, 1, 7);
+        trie.update("The Handmaid's Tale", BookSuggestion.Type.TITLE, 1, 4);
+        trie.update("Thomas Hardy", BookSuggestion.Type.AUTHOR, 1, 1);
+    }
+
+    @Test
+    @DisplayName("Should return a finished suggestion before descending into an equally heavy subtree")
+    void testTopK_EntryBeforeNodeOnTie() {
+        trie.update("Dune", BookSuggestion.Type.TITLE, 1, 5);
+        trie.update("Dune Messiah", BookSuggestion.Type.TITLE, 1, 5);
+        trie.update("Dune Messiah Notes", BookSuggestion.Type.TITLE, 1, 5);
+
+        List<BookSuggestion> result = trie.topK("du", 2);
+
+        assertEquals(List.of("Dune", "Dune Messiah"), result.stream().map(BookSuggestion::getText).toList());
+    }
+
+    @Test
+    @DisplayName("Should return prefix matches heaviest first")
+    void testTopK_OrderedByWeight() {
+
+        List<BookSuggestion> result = trie.topK("the h", 10);
+
+
+        assertEquals(List.of("The Hunger Games", "The Handmaid's Tale", "The Hobbit"),
+                result.stream().map(BookSuggestion::getText).toList());
+    }
+
+    @Test
+    @DisplayName("Should cut results at k")
+    void testTopK_Limit() {
+
+        List<BookSuggestion> result = trie.topK("th", 2);
+
+
+        assertEquals(2, result.size());
+        assertEquals("The Hunger Games", result.get(0).getText());
+    }
+
+    @Test
+    @DisplayName("Should match case-insensitively and include authors")
+    void testTopK_CaseInsensitiveAuthors() {
+
+        List<BookSuggestion> result = trie.topK("THOM", 5);
+
+
+        assertEquals(1, result.size());
+        assertEquals(BookSuggestion.Type.AUTHOR, result.get(0).getType());
+    }
+
+    @Test
+    @DisplayName("Should reorder after popularity changes")
+    void testUpdate_WeightChange() {
+
+        trie.update("The Hobbit", BookSuggestion.Type.TITLE, 0, 10);
+
+
+        assertEquals("The Hobbit", trie.topK("the", 1).get(0).getText());
+        assertEquals(12, trie.topK("the hob", 1).get(0).getPopularity());
+    }
+
+    @Test
+    @DisplayName("Should drop a suggestion once its last reference is removed")
+    void testUpdate_RemoveLastReference() {
+        trie.update("The Hobbit", BookSuggestion.Type.TITLE, 1, 0);
+
+        trie.update("The Hobbit", BookSuggestion.Type.TITLE, -1, 0);
+        assertEquals(1, trie.topK("the hob", 5).size());
+
+        trie.update("The Hobbit", BookSuggestion.Type.TITLE, -1, -2);
+        assertTrue(trie.topK("the hob", 5).isEmpty());
+        assertEquals(3, trie.size());
+    }
+
+    @Test
+    @DisplayName("Should match a prefix that ends inside a compressed edge")
+    void testTopK_PrefixInsideEdge() {
+
+        List<BookSuggestion> result = trie.topK("the hung", 5);
+
+
+        assertEquals(List.of("The Hunger Games"), result.stream().map(BookSuggestion::getText).toList());
+        assertTrue(trie.topK("the hux", 5).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep one node per branching point, splitting and merging edges as suggestions come and go")
+    void testUpdate_CompactsEdges() {
+        // root, "th", "e h", "obbit", "unger games", "andmaid's tale", "omas hardy"
+        assertEquals(7, trie.nodeCount());
+
+        trie.update("The Hobbit Companion", BookSuggestion.Type.TITLE, 1, 1);
+        assertEquals(8, trie.nodeCount());
+        assertEquals(2, trie.topK("the hobbit", 5).size());
+
+        trie.update("The Hobbit Companion", BookSuggestion.Type.TITLE, -1, -1);
+        trie.update("Thomas Hardy", BookSuggestion.Type.AUTHOR, -1, -1);
+        // "th" is left with a single child and no suggestion of its own, so it merges into "the h"
+        assertEquals(5, trie.nodeCount());
+        assertEquals(List.of("The Hunger Games", "The Handmaid's Tale", "The Hobbit"),
+                trie.topK("t", 10).stream().map(BookSuggestion::getText).toList());
+    }
+
+    @Test
+    @DisplayName("Should return nothing for unknown prefix")
+    void testTopK_UnknownPrefix() {
+        assertTrue(trie.topK("zzz", 5).isEmpty());
+    }
+}
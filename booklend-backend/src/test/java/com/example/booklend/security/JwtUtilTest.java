@@ -0,0 +1,75 @@
+package com.example.booklend.security;
+
+import com.example.booklend.model.Role;
+import com.example.booklend.model.User;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private JwtUtil jwtUtil;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = newJwtUtil(60_000);
+        user = new User();
+        user.setEmail("user@test.com");
+        user.setRole(Role.ADMIN);
+    }
+
+    private static JwtUtil newJwtUtil(long expirationMs) {
+        JwtUtil util = new JwtUtil();
+        ReflectionTestUtils.setField(util, "secret", "test_secret_that_is_at_least_32_characters_long");
+        ReflectionTestUtils.setField(util, "expirationMs", expirationMs);
+        util.init();
+        return util;
+    }
+
+    @Test
+    @DisplayName("Should expose subject, role and expiry from a single verification")
+    void testVerify_ReturnsClaims() {
+        String token = jwtUtil.generateToken(user);
+
+        VerifiedToken verified = jwtUtil.verify(token);
+
+        assertEquals("user@test.com", verified.subject());
+        assertEquals("ADMIN", verified.role());
+        assertNotNull(verified.issuedAt());
+        assertFalse(verified.isExpired());
+        assertTrue(jwtUtil.matches(verified, user));
+    }
+
+    @Test
+    @DisplayName("Should reject a token with a tampered signature")
+    void testVerify_TamperedToken() {
+        String token = jwtUtil.generateToken(user);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtUtil.verify(tampered));
+    }
+
+    @Test
+    @DisplayName("Should reject an expired token")
+    void testVerify_ExpiredToken() {
+        String token = newJwtUtil(-1_000).generateToken(user);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.verify(token));
+    }
+
+    @Test
+    @DisplayName("Should not match a token issued for another user")
+    void testMatches_DifferentUser() {
+        VerifiedToken verified = jwtUtil.verify(jwtUtil.generateToken(user));
+        User other = new User();
+        other.setEmail("other@test.com");
+
+        assertFalse(jwtUtil.matches(verified, other));
+    }
+}
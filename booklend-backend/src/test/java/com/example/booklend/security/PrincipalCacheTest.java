@@ -0,0 +1,88 @@
+package com.example.booklend.security;
+
+import com.example.booklend.model.Role;
+import com.example.booklend.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PrincipalCacheTest {
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PrincipalCache principalCache;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        principalCache = new PrincipalCache(userDetailsService, meterRegistry, Duration.ofMinutes(5), 100);
+        user = new User();
+        user.setId(1L);
+        user.setEmail("user@test.com");
+        user.setRole(Role.USER);
+    }
+
+    @Test
+    @DisplayName("Should load a principal once and serve repeats from the cache")
+    void testGet_CachesPrincipal() {
+        when(userDetailsService.loadUserByUsername("user@test.com")).thenReturn(user);
+
+        UserDetails first = principalCache.get("user@test.com");
+        UserDetails second = principalCache.get("user@test.com");
+
+        assertSame(first, second);
+        verify(userDetailsService, times(1)).loadUserByUsername("user@test.com");
+    }
+
+    @Test
+    @DisplayName("Should reload a principal after it is invalidated")
+    void testInvalidate_ForcesReload() {
+        when(userDetailsService.loadUserByUsername("user@test.com")).thenReturn(user);
+        principalCache.get("user@test.com");
+
+        principalCache.invalidate("user@test.com");
+        principalCache.get("user@test.com");
+
+        verify(userDetailsService, times(2)).loadUserByUsername("user@test.com");
+    }
+
+    @Test
+    @DisplayName("Should evict the cached principal when the user entity changes")
+    void testInvalidator_EvictsOnUserChange() {
+        when(userDetailsService.loadUserByUsername("user@test.com")).thenReturn(user);
+        principalCache.get("user@test.com");
+
+        new PrincipalCacheInvalidator(principalCache).onUserChanged(user);
+        principalCache.get("user@test.com");
+
+        verify(userDetailsService, times(2)).loadUserByUsername("user@test.com");
+    }
+
+    @Test
+    @DisplayName("Should publish hit and miss counts as metrics")
+    void testMetrics_RecordsHitsAndMisses() {
+        when(userDetailsService.loadUserByUsername("user@test.com")).thenReturn(user);
+
+        principalCache.get("user@test.com");
+        principalCache.get("user@test.com");
+        principalCache.get("user@test.com");
+
+        assertEquals(2.0, meterRegistry.get("cache.gets").tags("cache", "principals", "result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "principals", "result", "miss").functionCounter().count());
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.booklend.security;
+
+import com.example.booklend.cache.LocalCacheInvalidationBus;
+import com.example.booklend.model.Role;
+import com.example.booklend.model.User;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class VerifiedTokenCacheTest {
+
+    private JwtUtil jwtUtil;
+    private LocalCacheInvalidationBus bus;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        JwtUtil real = new JwtUtil();
+        ReflectionTestUtils.setField(real, "secret", "test_secret_that_is_at_least_32_characters_long");
+        ReflectionTestUtils.setField(real, "expirationMs", 60_000L);
+        real.init();
+        jwtUtil = spy(real);
+        bus = new LocalCacheInvalidationBus();
+
+        User user = new User();
+        user.setEmail("user@test.com");
+        user.setRole(Role.USER);
+        token = jwtUtil.generateToken(user);
+    }
+
+    private VerifiedTokenCache newCache(boolean enabled) {
+        return new VerifiedTokenCache(jwtUtil, bus, new SimpleMeterRegistry(), enabled, 100);
+    }
+
+    @Test
+    @DisplayName("Should verify a repeated token only once")
+    void testVerify_RepeatedTokenHitsCache() {
+        VerifiedTokenCache cache = newCache(true);
+
+        VerifiedToken first = cache.verify(token);
+        VerifiedToken second = cache.verify(token);
+
+        assertEquals("user@test.com", second.subject());
+        assertSame(first, second);
+        verify(jwtUtil, times(1)).verify(token);
+    }
+
+    @Test
+    @DisplayName("Should verify every time when the cache is disabled")
+    void testVerify_Disabled() {
+        VerifiedTokenCache cache = newCache(false);
+
+        cache.verify(token);
+        cache.verify(token);
+
+        verify(jwtUtil, times(2)).verify(token);
+    }
+
+    @Test
+    @DisplayName("Should reject a token after it has been revoked on logout")
+    void testRevoke_RejectsCachedToken() {
+        VerifiedTokenCache cache = newCache(true);
+        cache.verify(token);
+
+        cache.revoke(token);
+
+        assertThrows(JwtException.class, () -> cache.verify(token));
+    }
+
+    @Test
+    @DisplayName("Should reject a revoked token even when the cache is disabled")
+    void testRevoke_DisabledCache() {
+        VerifiedTokenCache cache = newCache(false);
+
+        cache.revoke(token);
+
+        assertThrows(JwtException.class, () -> cache.verify(token));
+    }
+
+    @Test
+    @DisplayName("Should reject a token logged out on another node sharing the invalidation bus")
+    void testRevoke_PropagatesThroughBus() {
+        VerifiedTokenCache cache = newCache(true);
+        VerifiedTokenCache otherNode = newCache(true);
+        otherNode.verify(token);
+
+        cache.revoke(token);
+
+        assertThrows(JwtException.class, () -> otherNode.verify(token));
+    }
+
+    @Test
+    @DisplayName("Should ignore revocation of a token that does not verify")
+    void testRevoke_InvalidToken() {
+        VerifiedTokenCache cache = newCache(true);
+
+        assertDoesNotThrow(() -> cache.revoke("not-a-jwt"));
+        assertThrows(JwtException.class, () -> cache.verify("not-a-jwt"));
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.booklend.service;
+
+import com.example.booklend.dto.ImportReport;
+import com.example.booklend.model.Book;
+import com.example.booklend.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "books.import.batch-size=2")
+class BookImportServiceTest {
+
+    private final String run = "Import-" + System.nanoTime();
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAll(imported());
+    }
+
+    @Test
+    @DisplayName("Should import valid CSV rows in batches and report the invalid ones by line")
+    void testImportCsv_ReportsInvalidRows() {
+        String csv = "title,author,genre,summary,stockCount\n"
+                + run + " A,Author,Fantasy,\"Dragons, and more\",3\n"
+                + ",No Title,Fantasy,Summary,1\n"
+                + run + " B,Author,Poetry,\"Two\nlines\",0\n"
+                + run + " C,Author,Poetry,Summary,many\n"
+                + run + " D,Author,Poetry,Summary,-1\n"
+                + run + " E,Author,Poetry,Summary,7\n";
+
+        ResponseEntity<?> response = bookImportService.importBooks(stream(csv), "text/csv");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        ImportReport report = (ImportReport) response.getBody();
+        assertEquals(6, report.getReceived());
+        assertEquals(3, report.getImported());
+        assertEquals(3, report.getFailed());
+        assertEquals(List.of(3L, 6L, 7L), report.getErrors().stream().map(ImportReport.RowError::getLine).toList());
+        List<Book> books = imported();
+        assertEquals(3, books.size());
+        assertTrue(books.stream().anyMatch(b -> "Two\nlines".equals(b.getSummary())));
+        assertTrue(books.stream().anyMatch(b -> "Dragons, and more".equals(b.getSummary())));
+    }
+
+    @Test
+    @DisplayName("Should import NDJSON lines and skip malformed JSON")
+    void testImportNdjson_SkipsMalformedLines() {
+        String ndjson = "{\"title\":\"" + run + " A\",\"author\":\"Author\",\"stockCount\":2}\n"
+                + "{not json}\n"
+                + "\n"
+                + "{\"title\":\"" + run + " B\",\"author\":\"Author\",\"genre\":\"Sci-Fi\",\"stockCount\":4}\n";
+
+        ResponseEntity<?> response = bookImportService.importBooks(stream(ndjson), "application/x-ndjson");
+
+        ImportReport report = (ImportReport) response.getBody();
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(2L, report.getErrors().get(0).getLine());
+        assertEquals(2, imported().size());
+    }
+
+    @Test
+    @DisplayName("Should refuse a CSV whose header lacks required columns")
+    void testImportCsv_MissingColumns() {
+        ResponseEntity<?> response = bookImportService.importBooks(stream("title,genre\nDune,Sci-Fi\n"), "text/csv");
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Should report records over the length cap and carry on with the next line")
+    void testImport_RecordTooLong() {
+        String huge = "x".repeat(70_000);
+        String csv = "title,author,genre,summary,stockCount\n"
+                + run + " A,Author,Poetry,Summary,1\n"
+                + run + " Long,Author,Poetry," + huge + ",1\n"
+                + run + " B,Author,Poetry,Summary,2\n";
+        String ndjson = "{\"title\":\"" + run + " C\",\"author\":\"Author\",\"stockCount\":2}\n"
+                + "{\"title\":\"" + huge + "\"}\n"
+                + "{\"title\":\"" + run + " D\",\"author\":\"Author\",\"stockCount\":4}\n";
+
+        ImportReport csvReport = (ImportReport) bookImportService.importBooks(stream(csv), "text/csv").getBody();
+        ImportReport ndjsonReport = (ImportReport) bookImportService.importBooks(stream(ndjson), "application/x-ndjson").getBody();
+
+        assertEquals(2, csvReport.getImported());
+        assertEquals(List.of(3L), csvReport.getErrors().stream().map(ImportReport.RowError::getLine).toList());
+        assertEquals(2, ndjsonReport.getImported());
+        assertEquals(List.of(2L), ndjsonReport.getErrors().stream().map(ImportReport.RowError::getLine).toList());
+        assertEquals(4, imported().size());
+    }
+
+    private List<Book> imported() {
+        return bookRepository.findAll().stream().filter(b -> b.getTitle() != null && b.getTitle().startsWith(run)).toList();
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,22 +1,42 @@
 package com.example.booklend.service;
 
+import com.example.booklend.cache.BookCache;
+import com.example.booklend.cache.CatalogSnapshot;
+import com.example.booklend.cache.CatalogVersion;
+import com.example.booklend.cache.LocalCacheInvalidationBus;
+import com.example.booklend.dto.CursorPage;
+import com.example.booklend.dto.GenreStatsDto;
+import com.example.booklend.dto.PageResponse;
+import com.example.booklend.event.CatalogChangedEvent;
+import com.example.booklend.event.RentalChangedEvent;
 import com.example.booklend.model.Book;
 import com.example.booklend.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
  
 @ExtendWith(MockitoExtension.class)
@@ -25,6 +45,16 @@ class BookServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Spy
+    private CatalogVersion catalogVersion = new CatalogVersion(new LocalCacheInvalidationBus());
+
+    @Mock
+    private CatalogSnapshot catalogSnapshot;
+
+    @Spy
+    private BookCache bookCache = new BookCache(catalogVersion, new LocalCacheInvalidationBus(),
+            new SimpleMeterRegistry(), Duration.ofMinutes(10), 100);
+
     @InjectMocks
     private BookService bookService;
 
@@ -61,10 +91,10 @@ class BookServiceTest {
     void testListAll_Success() {
         
         List<Book> books = Arrays.asList(testBook1, testBook2);
-        when(bookRepository.findAll()).thenReturn(books);
+        when(bookRepository.findAllWithBorrowedCount()).thenReturn(books);
 
         
-        ResponseEntity<?> response = bookService.listAll();
+        ResponseEntity<?> response = bookService.listAll(null, null);
 
         
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -72,17 +102,17 @@ class BookServiceTest {
         @SuppressWarnings("unchecked")
         List<Book> returnedBooks = (List<Book>) response.getBody();
         assertEquals(2, returnedBooks.size());
-        verify(bookRepository, times(1)).findAll();
+        verify(bookRepository, times(1)).findAllWithBorrowedCount();
     }
 
     @Test
     @DisplayName("Should return empty list when no books exist")
     void testListAll_EmptyList() {
         
-        when(bookRepository.findAll()).thenReturn(Arrays.asList());
+        when(bookRepository.findAllWithBorrowedCount()).thenReturn(Arrays.asList());
 
         
-        ResponseEntity<?> response = bookService.listAll();
+        ResponseEntity<?> response = bookService.listAll(null, null);
 
         
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -90,7 +120,7 @@ class BookServiceTest {
         @SuppressWarnings("unchecked")
         List<Book> returnedBooks = (List<Book>) response.getBody();
         assertEquals(0, returnedBooks.size());
-        verify(bookRepository, times(1)).findAll();
+        verify(bookRepository, times(1)).findAllWithBorrowedCount();
     }
 
     @Test
@@ -101,7 +131,7 @@ class BookServiceTest {
         when(bookRepository.findById(bookId)).thenReturn(Optional.of(testBook1));
 
         
-        ResponseEntity<?> response = bookService.getById(bookId);
+        ResponseEntity<?> response = bookService.getById(bookId, null);
 
         
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -122,7 +152,7 @@ class BookServiceTest {
         when(bookRepository.findById(nonExistentId)).thenReturn(Optional.empty());
 
         
-        ResponseEntity<?> response = bookService.getById(nonExistentId);
+        ResponseEntity<?> response = bookService.getById(nonExistentId, null);
 
         
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
@@ -147,7 +177,7 @@ class BookServiceTest {
         when(bookRepository.findById(3L)).thenReturn(Optional.of(outOfStockBook));
 
         
-        ResponseEntity<?> response = bookService.getById(3L);
+        ResponseEntity<?> response = bookService.getById(3L, null);
 
         
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -159,12 +189,237 @@ class BookServiceTest {
     @DisplayName("Should handle null ID gracefully")
     void testGetById_NullId() {
         
-        when(bookRepository.findById(null)).thenReturn(Optional.empty());
-
-        
-        ResponseEntity<?> response = bookService.getById(null);
+        ResponseEntity<?> response = bookService.getById(null, null);
 
         
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(bookRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Should return page envelope for filtered search")
+    void testSearch_Success() {
+        Pageable pageable = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "stockCount").and(Sort.by("id")));
+        when(bookRepository.searchWithBorrowedCount("Fiction", true, "gat", pageable))
+                .thenReturn(new PageImpl<>(List.of(testBook1), pageable, 5));
+
+
+        ResponseEntity<?> response = bookService.search(0, 2, "stock,desc", "Fiction", true, "gat");
+
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        PageResponse<?> page = (PageResponse<?>) response.getBody();
+        assertEquals(1, page.getContent().size());
+        assertEquals(5, page.getTotalElements());
+        assertEquals(3, page.getTotalPages());
+    }
+
+    @Test
+    @DisplayName("Should reject unknown sort field")
+    void testSearch_InvalidSort() {
+
+        ResponseEntity<?> response = bookService.search(0, 20, "summary,asc", null, false, null);
+
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(bookRepository, never()).searchWithBorrowedCount(any(), anyBoolean(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should reject page size above the maximum")
+    void testSearch_PageTooLarge() {
+
+        ResponseEntity<?> response = bookService.search(0, 1000, null, null, false, null);
+
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Should treat blank genre as no filter")
+    void testSearch_BlankGenre() {
+        when(bookRepository.searchWithBorrowedCount(eq(null), eq(false), eq(null), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of()));
+
+
+        ResponseEntity<?> response = bookService.search(0, 20, null, " ", false, null);
+
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Should return next cursor when more books follow")
+    void testScroll_HasNextPage() {
+        when(bookRepository.scrollByTitle(null, null, 2)).thenReturn(List.of(testBook2, testBook1));
+
+
+        ResponseEntity<?> response = bookService.scroll(null, 1, "title");
+
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        CursorPage<?> page = (CursorPage<?>) response.getBody();
+        assertEquals(1, page.getContent().size());
+        assertNotNull(page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Should seek past the cursor position")
+    void testScroll_FromCursor() {
+        String cursor = CursorCodec.encode("title", 2L, "1984");
+        when(bookRepository.scrollByTitle("1984", 2L, 11)).thenReturn(List.of(testBook1));
+
+
+        ResponseEntity<?> response = bookService.scroll(cursor, 10, "title");
+
+
+        CursorPage<?> page = (CursorPage<?>) response.getBody();
+        assertEquals(1, page.getContent().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Should reject invalid cursor")
+    void testScroll_InvalidCursor() {
+
+        ResponseEntity<?> response = bookService.scroll("garbage", 10, "title");
+
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Should answer 304 without querying when the catalog ETag still matches")
+    void testListAll_NotModified() {
+
+        String etag = catalogVersion.catalogEtag();
+
+
+        ResponseEntity<?> response = bookService.listAll(etag, null);
+
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(etag, response.getHeaders().getETag());
+        assertNull(response.getBody());
+        verify(bookRepository, never()).findAllWithBorrowedCount();
+    }
+
+    @Test
+    @DisplayName("Should issue a new catalog ETag after a rental changes stock")
+    void testListAll_EtagChangesAfterRental() {
+
+        when(bookRepository.findAllWithBorrowedCount()).thenReturn(List.of(testBook1));
+        String before = catalogVersion.catalogEtag();
+        catalogVersion.onRentalChanged(RentalChangedEvent.borrowed(1L));
+
+
+        ResponseEntity<?> response = bookService.listAll(before, null);
+
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotEquals(before, response.getHeaders().getETag());
+    }
+
+    @Test
+    @DisplayName("Should keep a book's ETag when a different book changes")
+    void testGetById_EtagIsPerBook() {
+
+        String etag = catalogVersion.bookEtag(1L);
+        catalogVersion.onCatalogChanged(CatalogChangedEvent.updated(testBook2));
+
+
+        ResponseEntity<?> response = bookService.getById(1L, etag);
+
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        verify(bookRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Should serve pre-encoded gzip bytes when the snapshot is current")
+    void testListAll_ServesGzipSnapshot() {
+
+        byte[] json = "[]".getBytes();
+        byte[] gzip = new byte[]{31, -117};
+        CatalogSnapshot.Snapshot snapshot = new CatalogSnapshot.Snapshot(catalogVersion.current(), json, gzip);
+        when(catalogSnapshot.latest()).thenReturn(snapshot);
+
+
+        ResponseEntity<?> response = bookService.listAll(null, "br, gzip;q=0.8");
+
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(gzip, response.getBody());
+        assertEquals("gzip", response.getHeaders().getFirst("Content-Encoding"));
+        assertEquals(CatalogVersion.gzipVariant(catalogVersion.catalogEtag()), response.getHeaders().getETag());
+        verify(bookRepository, never()).findAllWithBorrowedCount();
+    }
+
+    @Test
+    @DisplayName("Should fall back to the live query when no snapshot can be served")
+    void testListAll_NoSnapshot() {
+
+        when(catalogSnapshot.latest()).thenReturn(null);
+        when(bookRepository.findAllWithBorrowedCount()).thenReturn(List.of(testBook1));
+
+
+        ResponseEntity<?> response = bookService.listAll(null, "gzip");
+
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(testBook1), response.getBody());
+        assertNull(response.getHeaders().getFirst("Content-Encoding"));
+    }
+
+    @Test
+    @DisplayName("Should keep serving the latest snapshot under its own ETag while rentals bump the version")
+    void testListAll_SnapshotServedBetweenRentals() {
+
+        CatalogSnapshot snapshots = new CatalogSnapshot();
+        ReflectionTestUtils.setField(snapshots, "bookRepository", bookRepository);
+        ReflectionTestUtils.setField(snapshots, "catalogVersion", catalogVersion);
+        ReflectionTestUtils.setField(snapshots, "jsonMapper", JsonMapper.builder().build());
+        ReflectionTestUtils.setField(snapshots, "debounceMs", 60_000L);
+        ReflectionTestUtils.setField(snapshots, "maxStaleMs", 60_000L);
+        ReflectionTestUtils.setField(bookService, "catalogSnapshot", snapshots);
+        when(bookRepository.findAllWithBorrowedCount()).thenReturn(List.of(testBook1));
+        String snapshotEtag = catalogVersion.catalogEtag();
+        ReflectionTestUtils.invokeMethod(snapshots, "rebuild");
+
+        try {
+            for (int i = 0; i < 5; i++) {
+                catalogVersion.onRentalChanged(i % 2 == 0 ? RentalChangedEvent.borrowed(1L) : RentalChangedEvent.returned(1L));
+                ResponseEntity<?> response = bookService.listAll(null, null);
+
+                assertEquals(HttpStatus.OK, response.getStatusCode());
+                assertInstanceOf(byte[].class, response.getBody());
+                assertEquals(snapshotEtag, response.getHeaders().getETag());
+                assertEquals(HttpStatus.NOT_MODIFIED, bookService.listAll(snapshotEtag, null).getStatusCode());
+            }
+        } finally {
+            snapshots.shutdown();
+        }
+        // Only the snapshot build itself queried the catalog
+        verify(bookRepository, times(1)).findAllWithBorrowedCount();
+    }
+
+    @Test
+    @DisplayName("Should compute genre stats once per catalog version")
+    void testGenres_CachedPerVersion() {
+
+        List<GenreStatsDto> stats = List.of(new GenreStatsDto("Fiction", 2, 6, 2, 0.75));
+        when(bookRepository.genreStats()).thenReturn(stats);
+
+
+        ResponseEntity<?> first = bookService.genres(null);
+        ResponseEntity<?> second = bookService.genres(null);
+        catalogVersion.onRentalChanged(RentalChangedEvent.returned(1L));
+        ResponseEntity<?> afterReturn = bookService.genres(null);
+
+
+        assertEquals(stats, first.getBody());
+        assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+        assertNotEquals(first.getHeaders().getETag(), afterReturn.getHeaders().getETag());
+        verify(bookRepository, times(2)).genreStats();
     }
 }
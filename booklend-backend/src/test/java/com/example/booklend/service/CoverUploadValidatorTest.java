@@ -0,0 +1,177 @@
+package com.example.booklend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoverUploadValidatorTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private FileStorageService fileStorageService;
+    private CoverUploadValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = new FileStorageService();
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", uploadDir.toString());
+        fileStorageService.init();
+        validator = new CoverUploadValidator();
+        ReflectionTestUtils.setField(validator, "fileStorageService", fileStorageService);
+        ReflectionTestUtils.setField(validator, "maxSize", DataSize.ofKilobytes(64));
+        ReflectionTestUtils.setField(validator, "maxDimension", 2000);
+    }
+
+    @Test
+    @DisplayName("Should stage a real image under the extension of its sniffed type")
+    void testStage_ValidImage() throws Exception {
+        byte[] png = png(300, 400);
+
+        // The client-side name says nothing about the type any more
+        FileStorageService.StagedFile staged = validator.stage(new ByteArrayInputStream(png), png.length);
+
+        assertTrue(staged.filename().endsWith(".png"));
+        assertEquals(png.length, Files.size(staged.tmp()));
+        fileStorageService.discard(staged);
+    }
+
+    @Test
+    @DisplayName("Should reject content that is not an image by its magic bytes")
+    void testStage_NotAnImage() {
+        byte[] text = "<html>definitely a jpeg</html>".getBytes(StandardCharsets.UTF_8);
+
+        RejectedUploadException e = assertThrows(RejectedUploadException.class,
+                () -> validator.stage(new ByteArrayInputStream(text), text.length));
+
+        assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, e.getStatus());
+        assertNoFilesLeft();
+    }
+
+    @Test
+    @DisplayName("Should reject a declared oversized upload without reading the body")
+    void testStage_DeclaredTooLarge() {
+        InputStream unreadable = new InputStream() {
+            @Override
+            public int read() {
+                throw new AssertionError("body must not be read");
+            }
+        };
+
+        RejectedUploadException e = assertThrows(RejectedUploadException.class,
+                () -> validator.stage(unreadable, DataSize.ofMegabytes(10).toBytes()));
+
+        assertEquals(HttpStatus.CONTENT_TOO_LARGE, e.getStatus());
+    }
+
+    @Test
+    @DisplayName("Should stop a chunked upload as soon as it passes the size cap")
+    void testStage_StreamedTooLarge() throws IOException {
+        byte[] big = new byte[256 * 1024];
+        new Random(1).nextBytes(big);
+        byte[] png = png(10, 10);
+        System.arraycopy(png, 0, big, 0, 8);
+        CountingStream body = new CountingStream(big);
+
+        RejectedUploadException e = assertThrows(RejectedUploadException.class, () -> validator.stage(body, -1));
+
+        assertEquals(HttpStatus.CONTENT_TOO_LARGE, e.getStatus());
+        assertTrue(body.served() < big.length);
+        assertNoFilesLeft();
+    }
+
+    @Test
+    @DisplayName("Should reject images whose header declares too many pixels before staging anything")
+    void testStage_DimensionsTooLarge() throws IOException {
+        byte[] png = png(2500, 10);
+        ReflectionTestUtils.setField(validator, "fileStorageService", new FileStorageService() {
+            @Override
+            public StagedFile stage(InputStream content, String originalFilename) {
+                throw new AssertionError("an oversized image must not be staged");
+            }
+        });
+
+        RejectedUploadException e = assertThrows(RejectedUploadException.class,
+                () -> validator.stage(new ByteArrayInputStream(png), png.length));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+    }
+
+    @Test
+    @DisplayName("Should read the header from the staged file when metadata pushes it past the buffered prefix")
+    void testStage_HeaderBeyondPrefix() throws Exception {
+        ReflectionTestUtils.setField(validator, "maxSize", DataSize.ofKilobytes(512));
+        byte[] jpeg = withPaddingSegments(jpeg(300, 400), CoverUploadValidator.HEADER_BYTES + 1024);
+
+        FileStorageService.StagedFile staged = validator.stage(new ByteArrayInputStream(jpeg), jpeg.length);
+
+        assertTrue(staged.filename().endsWith(".jpg"));
+        assertEquals(jpeg.length, Files.size(staged.tmp()));
+        fileStorageService.discard(staged);
+    }
+
+    private void assertNoFilesLeft() {
+        try (Stream<Path> files = Files.walk(uploadDir)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+
+    private static byte[] jpeg(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpg", out);
+        return out.toByteArray();
+    }
+
+    // Inserts APP15 segments (ignored by decoders) right after the SOI marker, as large EXIF or ICC blocks would
+    private static byte[] withPaddingSegments(byte[] jpeg, int padding) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        while (padding > 0) {
+            int payload = Math.min(padding, 60_000);
+            out.write(0xFF);
+            out.write(0xEF);
+            out.write((payload + 2) >> 8);
+            out.write((payload + 2) & 0xFF);
+            out.write(new byte[payload], 0, payload);
+            padding -= payload;
+        }
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+
+    private static final class CountingStream extends ByteArrayInputStream {
+        CountingStream(byte[] data) {
+            super(data);
+        }
+
+        int served() {
+            return pos;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.booklend.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorCodecTest {
+
+    @Test
+    @DisplayName("Should round-trip field, id and sort key")
+    void testEncodeDecode_RoundTrip() {
+
+        String cursor = CursorCodec.encode("title", 42L, "Title: with colons");
+
+
+        CursorCodec.Position position = CursorCodec.decode(cursor, "title");
+        assertNotNull(position);
+        assertEquals(42L, position.id());
+        assertEquals("Title: with colons", position.key());
+    }
+
+    @Test
+    @DisplayName("Should produce URL-safe tokens")
+    void testEncode_UrlSafe() {
+
+        String cursor = CursorCodec.encode("title", 7L, "???>>>~~~");
+
+
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    @DisplayName("Should reject cursor issued for a different sort field")
+    void testDecode_FieldMismatch() {
+
+        String cursor = CursorCodec.encode("id", 1L, null);
+
+
+        assertNull(CursorCodec.decode(cursor, "title"));
+    }
+
+    @Test
+    @DisplayName("Should reject malformed cursors")
+    void testDecode_Malformed() {
+        assertNull(CursorCodec.decode("not base64!", "id"));
+        assertNull(CursorCodec.decode(CursorCodec.encode("id", 1L, null).substring(2), "id"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.booklend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileStorageServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private FileStorageService fileStorageService;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = new FileStorageService();
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", uploadDir.toString());
+        fileStorageService.init();
+    }
+
+    @Test
+    @DisplayName("Should store files under their SHA-256 in a sharded directory")
+    void testStore_ContentHashName() throws IOException {
+        String name = fileStorageService.store(upload("cover.JPG", "hello"));
+
+        // sha256("hello")
+        assertEquals("2c/f2/2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824.jpg", name);
+        assertEquals("hello", Files.readString(fileStorageService.path(name)));
+    }
+
+    @Test
+    @DisplayName("Should keep a single file when the same bytes are uploaded twice")
+    void testStore_SameContentStoredOnce() throws IOException {
+        String first = fileStorageService.store(upload("a.png", "same bytes"));
+        String second = fileStorageService.store(upload("b.png", "same bytes"));
+
+        assertEquals(first, second);
+        try (Stream<Path> files = Files.walk(uploadDir)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    @DisplayName("Should delete a file and its derived files only when unreferenced")
+    void testDeleteIfUnreferenced() throws IOException {
+        String name = fileStorageService.store(upload("cover.png", "shared cover"));
+        Path derived = fileStorageService.path(name.replace(".png", "-thumb.jpg"));
+        Files.writeString(derived, "thumb");
+
+        assertFalse(fileStorageService.deleteIfUnreferenced(name, () -> false, List.of(uploadDir.relativize(derived).toString())));
+        assertTrue(Files.exists(fileStorageService.path(name)));
+
+        assertTrue(fileStorageService.deleteIfUnreferenced(name, () -> true, List.of(uploadDir.relativize(derived).toString())));
+        assertFalse(Files.exists(fileStorageService.path(name)));
+        assertFalse(Files.exists(derived));
+    }
+
+    @Test
+    @DisplayName("Should leave nothing behind when a staged upload is discarded")
+    void testDiscard_RemovesTempFile() throws IOException {
+        FileStorageService.StagedFile staged = fileStorageService.stage(
+                upload("cover.png", "never saved").getInputStream(), "cover.png");
+
+        fileStorageService.discard(staged);
+
+        try (Stream<Path> files = Files.walk(uploadDir)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse names that escape the upload directory")
+    void testPath_RejectsTraversal() {
+        assertThrows(IllegalArgumentException.class, () -> fileStorageService.path("../outside.jpg"));
+    }
+
+    private static MockMultipartFile upload(String name, String content) {
+        return new MockMultipartFile("image", name, "image/png", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.booklend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageVariantServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private FileStorageService fileStorageService;
+    private ImageVariantService imageVariantService;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = new FileStorageService();
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", uploadDir.toString());
+        fileStorageService.init();
+        imageVariantService = new ImageVariantService(fileStorageService, new SimpleMeterRegistry(), 1, 4, 0.8f, Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageVariantService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should derive variant names from the original filename")
+    void testVariantName() {
+        assertEquals("abc-thumb.jpg", ImageVariantService.variantName("abc.png", ImageVariantService.Variant.THUMB));
+        assertEquals("ab/cd/abcd-card.jpg", ImageVariantService.variantName("ab/cd/abcd", ImageVariantService.Variant.CARD));
+    }
+
+    @Test
+    @DisplayName("Should generate a downscaled JPEG on first request for a legacy cover")
+    void testResolve_GeneratesLazily() throws Exception {
+        writePng("legacy.png", 1200, 1600);
+
+        Path card = imageVariantService.resolve("legacy.png", ImageVariantService.Variant.CARD);
+
+        assertNotNull(card);
+        BufferedImage scaled = ImageIO.read(card.toFile());
+        assertEquals(400, scaled.getWidth());
+        assertEquals(533, scaled.getHeight());
+        assertEquals(3, imageVariantService.existing("legacy.png").size());
+    }
+
+    @Test
+    @DisplayName("Should not upscale covers smaller than the variant width")
+    void testResolve_NoUpscale() throws Exception {
+        writePng("small.png", 120, 180);
+
+        Path detail = imageVariantService.resolve("small.png", ImageVariantService.Variant.DETAIL);
+
+        assertEquals(120, ImageIO.read(detail.toFile()).getWidth());
+    }
+
+    @Test
+    @DisplayName("Should return null for files that are not decodable images")
+    void testResolve_NotAnImage() throws Exception {
+        Files.writeString(uploadDir.resolve("notes.png"), "not an image");
+
+        assertNull(imageVariantService.resolve("notes.png", ImageVariantService.Variant.THUMB));
+        assertTrue(imageVariantService.existing("notes.png").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should remember originals that failed to decode instead of decoding them again")
+    void testResolve_DecodeFailureCached() throws Exception {
+        Files.writeString(uploadDir.resolve("broken.png"), "not an image");
+        assertNull(imageVariantService.resolve("broken.png", ImageVariantService.Variant.THUMB));
+
+        // Would decode now, but content-addressed names never change bytes, so the verdict stands
+        writePng("broken.png", 200, 200);
+
+        assertNull(imageVariantService.resolve("broken.png", ImageVariantService.Variant.THUMB));
+        assertTrue(imageVariantService.existing("broken.png").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should report busy rather than decode on the request thread when generation does not finish in time")
+    void testResolve_Busy() throws Exception {
+        ImageVariantService impatient = new ImageVariantService(fileStorageService, new SimpleMeterRegistry(), 1, 1, 0.8f, Duration.ZERO);
+        writePng("large.png", 3000, 3000);
+
+        try {
+            assertThrows(VariantsBusyException.class, () -> impatient.resolve("large.png", ImageVariantService.Variant.CARD));
+        } finally {
+            impatient.shutdown();
+        }
+    }
+
+    private void writePng(String name, int width, int height) throws IOException {
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", uploadDir.resolve(name).toFile());
+    }
+}
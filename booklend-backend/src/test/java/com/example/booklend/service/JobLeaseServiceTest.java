@@ -0,0 +1,42 @@
+package com.example.booklend.service;
+
+import com.example.booklend.repository.JobLeaseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class JobLeaseServiceTest {
+
+    private final String job = "test-job-" + System.nanoTime();
+
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
+    @Autowired
+    private JobLeaseRepository jobLeaseRepository;
+
+    @AfterEach
+    void tearDown() {
+        jobLeaseRepository.deleteById(job);
+    }
+
+    @Test
+    @DisplayName("Should let the holder extend its lease and keep other owners out until release")
+    void testTryAcquire_ExclusiveUntilReleased() {
+        assertTrue(jobLeaseService.tryAcquire(job, Duration.ofMinutes(5)));
+        assertTrue(jobLeaseService.tryAcquire(job, Duration.ofMinutes(5)));
+
+        assertEquals(0, jobLeaseRepository.acquire(job, "other-node", 300));
+
+        jobLeaseService.release(job);
+        assertEquals(1, jobLeaseRepository.acquire(job, "other-node", 300));
+        assertFalse(jobLeaseService.tryAcquire(job, Duration.ofMinutes(5)));
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.booklend.service;
+
+import com.example.booklend.event.OverdueRentalsEvent;
+import com.example.booklend.model.Book;
+import com.example.booklend.model.Rental;
+import com.example.booklend.model.Role;
+import com.example.booklend.model.User;
+import com.example.booklend.repository.BookRepository;
+import com.example.booklend.repository.RentalRepository;
+import com.example.booklend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "rentals.overdue.batch-size=2",
+        "rentals.overdue.fee-per-day=0.50",
+        "rentals.overdue.max-fee=5.00"
+})
+class OverdueRentalScannerTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        NoticeCollector noticeCollector() {
+            return new NoticeCollector();
+        }
+    }
+
+    static class NoticeCollector {
+        final Queue<OverdueRentalsEvent> events = new ConcurrentLinkedQueue<>();
+
+        @EventListener
+        void on(OverdueRentalsEvent event) {
+            events.add(event);
+        }
+    }
+
+    @Autowired
+    private OverdueRentalScanner overdueRentalScanner;
+
+    @Autowired
+    private NoticeCollector noticeCollector;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        noticeCollector.events.clear();
+        book = bookRepository.save(new Book("Late", "Author", "Genre", "Summary", 5, null));
+        user = new User();
+        user.setEmail("overdue-" + System.nanoTime() + "@test.com");
+        user.setPassword("secret");
+        user.setFirstName("Late");
+        user.setLastName("Reader");
+        user.setRole(Role.USER);
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        rentalRepository.deleteByBookId(book.getId());
+        bookRepository.deleteById(book.getId());
+        userRepository.delete(user);
+    }
+
+    @Test
+    @DisplayName("Should publish overdue active rentals in batches with capped fees")
+    void testScan_PublishesOverdueRentals() {
+        LocalDate today = LocalDate.now();
+        Rental threeDaysLate = rentalRepository.save(rental(today.minusDays(3), false));
+        Rental monthLate = rentalRepository.save(rental(today.minusDays(30), false));
+        Rental lateButReturned = rentalRepository.save(rental(today.minusDays(30), true));
+        Rental notDue = rentalRepository.save(rental(today.plusDays(3), false));
+
+
+        overdueRentalScanner.scan(today);
+
+
+        List<OverdueRentalsEvent.Notice> ours = noticeCollector.events.stream()
+                .peek(e -> assertTrue(e.notices().size() <= 2))
+                .flatMap(e -> e.notices().stream())
+                .filter(n -> n.rental().bookId().equals(book.getId()))
+                .toList();
+        assertEquals(2, ours.size());
+        OverdueRentalsEvent.Notice month = ours.stream()
+                .filter(n -> n.rental().rentalId().equals(monthLate.getId())).findFirst().orElseThrow();
+        OverdueRentalsEvent.Notice three = ours.stream()
+                .filter(n -> n.rental().rentalId().equals(threeDaysLate.getId())).findFirst().orElseThrow();
+        assertEquals(30, month.daysOverdue());
+        assertEquals(0, new BigDecimal("5.00").compareTo(month.fee()));
+        assertEquals(0, new BigDecimal("1.50").compareTo(three.fee()));
+        assertEquals(user.getEmail(), three.rental().email());
+        assertTrue(ours.stream().noneMatch(n -> n.rental().rentalId().equals(lateButReturned.getId())
+                || n.rental().rentalId().equals(notDue.getId())));
+    }
+
+    private Rental rental(LocalDate dueDate, boolean returned) {
+        Rental rental = new Rental();
+        rental.setUser(user);
+        rental.setBook(book);
+        rental.setRentalDate(dueDate.minusDays(14));
+        rental.setDueDate(dueDate);
+        rental.setReturned(returned);
+        return rental;
+    }
+}
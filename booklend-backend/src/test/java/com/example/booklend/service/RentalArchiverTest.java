@@ -0,0 +1,93 @@
+package com.example.booklend.service;
+
+import com.example.booklend.model.Book;
+import com.example.booklend.model.Rental;
+import com.example.booklend.model.Role;
+import com.example.booklend.model.User;
+import com.example.booklend.repository.ArchivedRentalRepository;
+import com.example.booklend.repository.BookRepository;
+import com.example.booklend.repository.RentalRepository;
+import com.example.booklend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class RentalArchiverTest {
+
+    @Autowired
+    private RentalArchiver rentalArchiver;
+
+    @Autowired
+    private ArchivedRentalRepository archivedRentalRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        book = bookRepository.save(new Book("Archived", "Author", "Genre", "Summary", 5, null));
+        user = new User();
+        user.setEmail("archiver-" + System.nanoTime() + "@test.com");
+        user.setPassword("secret");
+        user.setFirstName("Archive");
+        user.setLastName("Reader");
+        user.setRole(Role.USER);
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        archivedRentalRepository.deleteByBookId(book.getId());
+        rentalRepository.deleteByBookId(book.getId());
+        bookRepository.deleteById(book.getId());
+        userRepository.delete(user);
+    }
+
+    @Test
+    @DisplayName("Should move only rentals returned before the cutoff into the archive")
+    void testArchive_MovesOldReturnedRentals() {
+        LocalDate today = LocalDate.now();
+        Rental old = rentalRepository.save(rental(today.minusDays(200), true, today.minusDays(190)));
+        Rental recent = rentalRepository.save(rental(today.minusDays(10), true, today.minusDays(5)));
+        Rental active = rentalRepository.save(rental(today.minusDays(200), false, null));
+
+
+        int moved = rentalArchiver.archive(today.minusDays(90));
+
+
+        assertEquals(1, moved);
+        assertTrue(archivedRentalRepository.findById(old.getId()).isPresent());
+        assertFalse(rentalRepository.existsById(old.getId()));
+        assertTrue(rentalRepository.existsById(recent.getId()));
+        assertTrue(rentalRepository.existsById(active.getId()));
+        assertEquals(0, rentalArchiver.archive(today.minusDays(90)));
+    }
+
+    private Rental rental(LocalDate rentalDate, boolean returned, LocalDate returnedDate) {
+        Rental rental = new Rental();
+        rental.setUser(user);
+        rental.setBook(book);
+        rental.setRentalDate(rentalDate);
+        rental.setDueDate(rentalDate.plusDays(7));
+        rental.setReturned(returned);
+        rental.setReturnedDate(returnedDate);
+        return rental;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.booklend.service;
+
+import com.example.booklend.dto.RentalDto;
+import com.example.booklend.model.Book;
+import com.example.booklend.model.Role;
+import com.example.booklend.model.User;
+import com.example.booklend.repository.BookRepository;
+import com.example.booklend.repository.RentalRepository;
+import com.example.booklend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class RentalServiceConcurrencyTest {
+
+    private static final int THREADS = 200;
+    private static final int STOCK = 25;
+
+    @Autowired
+    private RentalService rentalService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Book book;
+    private final List<User> borrowers = new ArrayList<>();
+    private final List<Book> extraBooks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        book = bookRepository.save(new Book("Contended", "Author", "Genre", "Summary", STOCK, null));
+        long run = System.nanoTime();
+        for (int i = 0; i < THREADS; i++) {
+            User user = new User();
+            user.setEmail("borrower-" + run + "-" + i + "@test.com");
+            user.setPassword("secret");
+            user.setFirstName("Borrower");
+            user.setLastName(String.valueOf(i));
+            user.setRole(Role.USER);
+            borrowers.add(userRepository.save(user));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Book extra : extraBooks) {
+            rentalRepository.deleteByBookId(extra.getId());
+            bookRepository.deleteById(extra.getId());
+        }
+        rentalRepository.deleteByBookId(book.getId());
+        bookRepository.deleteById(book.getId());
+        userRepository.deleteAll(borrowers);
+    }
+
+    @Test
+    @DisplayName("Should never oversell stock when many users borrow the same book at once")
+    void testReserveBook_ConcurrentBorrowers() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (User borrower : borrowers) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                ResponseEntity<?> response = rentalService.reserveBook(book.getId(), 7, null, borrower);
+                if (response.getStatusCode().is2xxSuccessful()) succeeded.incrementAndGet();
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+
+        Book reloaded = bookRepository.findById(book.getId()).orElseThrow();
+        assertEquals(STOCK, succeeded.get());
+        assertEquals(0, reloaded.getStockCount());
+        assertEquals(STOCK, rentalRepository.countByBookIdAndReturnedFalse(book.getId()));
+    }
+
+    @Test
+    @DisplayName("Should never exceed the active rental limit when one user borrows many books at once")
+    void testReserveBook_ConcurrentBorrowsBySameUser() throws Exception {
+        User borrower = borrowers.get(0);
+        for (int i = 0; i < 20; i++) {
+            extraBooks.add(bookRepository.save(new Book("Limit " + i, "Author", "Genre", "Summary", 5, null)));
+        }
+
+        int succeeded = runConcurrently(extraBooks.stream()
+                .map(b -> (Callable<ResponseEntity<?>>) () -> rentalService.reserveBook(b.getId(), 7, null, borrower))
+                .toList());
+
+        User reloaded = userRepository.findById(borrower.getId()).orElseThrow();
+        assertEquals(3, succeeded);
+        assertEquals(3, reloaded.getActiveRentalCount());
+        assertEquals(3, rentalRepository.countByUserIdAndReturnedFalse(borrower.getId()));
+    }
+
+    @Test
+    @DisplayName("Should allow only one active rental when a user borrows the same book concurrently")
+    void testReserveBook_ConcurrentDuplicateBorrows() throws Exception {
+        User borrower = borrowers.get(0);
+        List<Callable<ResponseEntity<?>>> attempts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            attempts.add(() -> rentalService.reserveBook(book.getId(), 7, null, borrower));
+        }
+
+        int succeeded = runConcurrently(attempts);
+
+        Book reloadedBook = bookRepository.findById(book.getId()).orElseThrow();
+        User reloadedUser = userRepository.findById(borrower.getId()).orElseThrow();
+        assertEquals(1, succeeded);
+        assertEquals(STOCK - 1, reloadedBook.getStockCount());
+        assertEquals(1, reloadedUser.getActiveRentalCount());
+    }
+
+    @Test
+    @DisplayName("Should never revive a returned rental when renew and return race")
+    void testRenewBook_ConcurrentWithReturn() throws Exception {
+        User borrower = borrowers.get(0);
+        for (int round = 0; round < 20; round++) {
+            ResponseEntity<?> reserved = rentalService.reserveBook(book.getId(), 7, null, borrower);
+            Long rentalId = ((RentalDto) reserved.getBody()).getId();
+
+            runConcurrently(List.of(
+                    () -> rentalService.renewBook(rentalId, 7, null, borrower),
+                    () -> rentalService.returnBook(rentalId, borrower)));
+
+            assertTrue(rentalRepository.findById(rentalId).orElseThrow().isReturned());
+        }
+
+        Book reloadedBook = bookRepository.findById(book.getId()).orElseThrow();
+        User reloadedUser = userRepository.findById(borrower.getId()).orElseThrow();
+        assertEquals(STOCK, reloadedBook.getStockCount());
+        assertEquals(0L, reloadedBook.getBorrowedCount());
+        assertEquals(0, reloadedUser.getActiveRentalCount());
+        assertEquals(0, rentalRepository.countByBookIdAndReturnedFalse(book.getId()));
+    }
+
+    private int runConcurrently(List<Callable<ResponseEntity<?>>> attempts) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(attempts.size());
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (Callable<ResponseEntity<?>> attempt : attempts) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                if (attempt.call().getStatusCode().is2xxSuccessful()) succeeded.incrementAndGet();
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+        return succeeded.get();
+    }
+}
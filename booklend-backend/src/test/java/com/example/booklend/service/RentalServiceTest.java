@@ -1,28 +1,42 @@
 package com.example.booklend.service;
 
+import com.example.booklend.cache.BookCache;
+import com.example.booklend.cache.CatalogVersion;
+import com.example.booklend.cache.LocalCacheInvalidationBus;
 import com.example.booklend.dto.RentalDto;
+import com.example.booklend.mapper.RentalMapper;
 import com.example.booklend.model.Book;
 import com.example.booklend.model.Rental;
 import com.example.booklend.model.User;
+import com.example.booklend.repository.ArchivedRentalRepository;
 import com.example.booklend.repository.BookRepository;
 import com.example.booklend.repository.RentalRepository;
 import com.example.booklend.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
  
 @ExtendWith(MockitoExtension.class)
@@ -37,9 +51,19 @@ class RentalServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ArchivedRentalRepository archivedRentalRepository;
+
     @Mock
     private UserDetails userDetails;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private BookCache bookCache = new BookCache(new CatalogVersion(new LocalCacheInvalidationBus()), new LocalCacheInvalidationBus(),
+            new SimpleMeterRegistry(), Duration.ofMinutes(10), 100);
+
     @InjectMocks
     private RentalService rentalService;
 
@@ -76,14 +100,19 @@ class RentalServiceTest {
 
     
 
+    private static List<Object[]> reservedRow() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, "Test Book", "Test Author"});
+        return rows;
+    }
+
     @Test
     @DisplayName("Should successfully reserve book when all conditions are met")
     void testReserveBook_Success() {
         
         when(userDetails.getUsername()).thenReturn("user@test.com");
         when(userRepository.findByEmail("user@test.com")).thenReturn(Optional.of(testUser));
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
-        when(rentalRepository.save(any(Rental.class))).thenReturn(testRental);
+        when(rentalRepository.reserve(eq(1L), eq(1L), eq(3), any(), any())).thenReturn(reservedRow());
 
         
         ResponseEntity<?> response = rentalService.reserveBook(1L, 14, null, userDetails);
@@ -92,8 +121,12 @@ class RentalServiceTest {
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertTrue(response.getBody() instanceof RentalDto);
-        verify(bookRepository, times(1)).save(any(Book.class));
-        verify(rentalRepository, times(1)).save(any(Rental.class));
+        RentalDto dto = (RentalDto) response.getBody();
+        assertEquals(1L, dto.getId());
+        assertEquals("Test Book", dto.getBookTitle());
+        assertEquals(LocalDate.now().plusDays(14), dto.getDueDate());
+        verify(rentalRepository, never()).save(any(Rental.class));
+        verify(bookRepository, never()).findById(any());
     }
 
     @Test
@@ -102,15 +135,14 @@ class RentalServiceTest {
         
         when(userDetails.getUsername()).thenReturn("user@test.com");
         when(userRepository.findByEmail("user@test.com")).thenReturn(Optional.of(testUser));
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
-        when(rentalRepository.save(any(Rental.class))).thenReturn(testRental);
+        when(rentalRepository.reserve(eq(1L), eq(1L), eq(3), any(), any())).thenReturn(reservedRow());
 
         
         ResponseEntity<?> response = rentalService.reserveBook(1L, null, null, userDetails);
 
         
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        verify(rentalRepository, times(1)).save(any(Rental.class));
+        verify(rentalRepository, times(1)).reserve(1L, 1L, 3, LocalDate.now(), LocalDate.now().plusWeeks(2));
     }
 
     @Test
@@ -120,18 +152,29 @@ class RentalServiceTest {
         String futureDate = LocalDate.now().plusDays(30).toString();
         when(userDetails.getUsername()).thenReturn("user@test.com");
         when(userRepository.findByEmail("user@test.com")).thenReturn(Optional.of(testUser));
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
-        when(rentalRepository.save(any(Rental.class))).thenReturn(testRental);
+        when(rentalRepository.reserve(eq(1L), eq(1L), eq(3), any(), any())).thenReturn(reservedRow());
 
         
         ResponseEntity<?> response = rentalService.reserveBook(1L, null, futureDate, userDetails);
 
         
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        verify(rentalRepository, times(1)).save(any(Rental.class));
+        verify(rentalRepository, times(1)).reserve(1L, 1L, 3, LocalDate.now(), LocalDate.parse(futureDate));
     }
 
-    
+    @Test
+    @DisplayName("Should skip the user lookup when the principal is the user entity")
+    void testReserveBook_PrincipalIsUser() {
+
+        when(rentalRepository.reserve(eq(1L), eq(1L), eq(3), any(), any())).thenReturn(reservedRow());
+
+
+        ResponseEntity<?> response = rentalService.reserveBook(1L, 14, null, testUser);
+
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(userRepository, never()).findByEmail(any());
+    }
 
     @Test
     @DisplayName("Should return 404 when book does not exist")
@@ -139,6 +182,7 @@ class RentalServiceTest {
         
         when(userDetails.getUsername()).thenReturn("user@test.com");
         when(userRepository.findByEmail("user@test.com")).thenReturn(Optional.of(testUser));
+        when(rentalRepository.reserve(eq(1L), eq(999L), eq(3), any(), any())).thenReturn(List.of());
         when(bookRepository.findById(999L)).thenReturn(Optional.empty());
 
         
@@ -156,6 +200,7 @@ class RentalServiceTest {
         testBook.setStockCount(0);
         when(userDetails.getUsername()).thenReturn("user@test.com");
         when(userRepository.findByEmail("user@test.com")).thenReturn(Optional.of(testUser));
+        when(rentalRepository.reserve(eq(1L), eq(1L), eq(3), any(), any())).thenReturn(List.of());
         when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
 
         
@@ -168,20 +213,51 @@ class RentalServiceTest {
     }
 
     @Test
-    @DisplayName("Should return 400 when due date format is invalid")
-    void testReserveBook_InvalidDateFormat() {
-        
+    @DisplayName("Should return 400 when the user already holds the maximum active rentals")
+    void testReserveBook_ActiveRentalLimit() {
+
         when(userDetails.getUsername()).thenReturn("user@test.com");
         when(userRepository.findByEmail("user@test.com")).thenReturn(Optional.of(testUser));
+        when(rentalRepository.reserve(eq(1L), eq(1L), eq(3), any(), any())).thenReturn(List.of());
         when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
+        when(rentalRepository.countByUserIdAndReturnedFalse(1L)).thenReturn(3L);
+
+
+        ResponseEntity<?> response = rentalService.reserveBook(1L, 14, null, userDetails);
+
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("You have reached the limit of 3 active rentals.", response.getBody());
+    }
+
+    @Test
+    @DisplayName("Should return 400 when the user already borrowed the same book")
+    void testReserveBook_DuplicateActiveRental() {
+
+        when(userDetails.getUsername()).thenReturn("user@test.com");
+        when(userRepository.findByEmail("user@test.com")).thenReturn(Optional.of(testUser));
+        when(rentalRepository.reserve(eq(1L), eq(1L), eq(3), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("ux_rentals_active_user_book"));
 
+
+        ResponseEntity<?> response = rentalService.reserveBook(1L, 14, null, userDetails);
+
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().toString().startsWith("You already borrowed this book"));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("Should return 400 when due date format is invalid")
+    void testReserveBook_InvalidDateFormat() {
         
         ResponseEntity<?> response = rentalService.reserveBook(1L, null, "invalid-date", userDetails);
 
         
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertTrue(response.getBody().toString().contains("Invalid dueDate format"));
-        verify(rentalRepository, never()).save(any(Rental.class));
+        verify(rentalRepository, never()).reserve(any(), any(), anyInt(), any(), any());
     }
 
     @Test
@@ -193,7 +269,7 @@ class RentalServiceTest {
         
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
         assertEquals("Unauthorized", response.getBody());
-        verify(rentalRepository, never()).save(any(Rental.class));
+        verify(rentalRepository, never()).reserve(any(), any(), anyInt(), any(), any());
     }
 
     
@@ -205,15 +281,14 @@ class RentalServiceTest {
         testBook.setStockCount(1);
         when(userDetails.getUsername()).thenReturn("user@test.com");
         when(userRepository.findByEmail("user@test.com")).thenReturn(Optional.of(testUser));
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
-        when(rentalRepository.save(any(Rental.class))).thenReturn(testRental);
+        when(rentalRepository.reserve(eq(1L), eq(1L), eq(3), any(), any())).thenReturn(reservedRow());
 
         
         ResponseEntity<?> response = rentalService.reserveBook(1L, 14, null, userDetails);
 
         
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        verify(bookRepository, times(1)).save(argThat(book -> book.getStockCount() == 0));
+        verify(bookRepository, never()).save(any(Book.class));
     }
 
     @Test
@@ -222,15 +297,14 @@ class RentalServiceTest {
         
         when(userDetails.getUsername()).thenReturn("user@test.com");
         when(userRepository.findByEmail("user@test.com")).thenReturn(Optional.of(testUser));
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
-        when(rentalRepository.save(any(Rental.class))).thenReturn(testRental);
+        when(rentalRepository.reserve(eq(1L), eq(1L), eq(3), any(), any())).thenReturn(reservedRow());
 
         
         ResponseEntity<?> response = rentalService.reserveBook(1L, 1, null, userDetails);
 
         
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        verify(rentalRepository, times(1)).save(any(Rental.class));
+        verify(rentalRepository, times(1)).reserve(1L, 1L, 3, LocalDate.now(), LocalDate.now().plusDays(1));
     }
 
     @Test
@@ -239,15 +313,14 @@ class RentalServiceTest {
         
         when(userDetails.getUsername()).thenReturn("user@test.com");
         when(userRepository.findByEmail("user@test.com")).thenReturn(Optional.of(testUser));
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
-        when(rentalRepository.save(any(Rental.class))).thenReturn(testRental);
+        when(rentalRepository.reserve(eq(1L), eq(1L), eq(3), any(), any())).thenReturn(reservedRow());
 
         
         ResponseEntity<?> response = rentalService.reserveBook(1L, 0, null, userDetails);
 
         
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        verify(rentalRepository, times(1)).save(any(Rental.class));
+        verify(rentalRepository, times(1)).reserve(1L, 1L, 3, LocalDate.now(), LocalDate.now().plusWeeks(2));
     }
 
     @Test
@@ -257,13 +330,126 @@ class RentalServiceTest {
         testBook.setStockCount(10);
         when(userDetails.getUsername()).thenReturn("user@test.com");
         when(userRepository.findByEmail("user@test.com")).thenReturn(Optional.of(testUser));
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
-        when(rentalRepository.save(any(Rental.class))).thenReturn(testRental);
+        when(rentalRepository.reserve(eq(1L), eq(1L), eq(3), any(), any())).thenReturn(reservedRow());
 
         
         rentalService.reserveBook(1L, 14, null, userDetails);
 
         
-        verify(bookRepository, times(1)).save(argThat(book -> book.getStockCount() == 9));
+        verify(rentalRepository, times(1)).reserve(eq(1L), eq(1L), eq(3), any(), any());
+        verify(bookRepository, never()).save(any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Should reject reservation when another borrower took the last copy")
+    void testReserveBook_LostRaceForLastCopy() {
+
+        testBook.setStockCount(1);
+        when(userDetails.getUsername()).thenReturn("user@test.com");
+        when(userRepository.findByEmail("user@test.com")).thenReturn(Optional.of(testUser));
+        when(rentalRepository.reserve(eq(1L), eq(1L), eq(3), any(), any())).thenReturn(List.of());
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
+
+
+        ResponseEntity<?> response = rentalService.reserveBook(1L, 14, null, userDetails);
+
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().toString().startsWith("Book is out of stock"));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("Should return book and restock atomically")
+    void testReturnBook_Success() {
+
+        when(userDetails.getUsername()).thenReturn("user@test.com");
+        when(userRepository.findByEmail("user@test.com")).thenReturn(Optional.of(testUser));
+        when(rentalRepository.findWithBookById(1L)).thenReturn(Optional.of(testRental));
+        when(rentalRepository.markReturned(1L)).thenReturn(1);
+
+
+        ResponseEntity<?> response = rentalService.returnBook(1L, userDetails);
+
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(((RentalDto) response.getBody()).isReturned());
+        verify(userRepository, times(1)).decrementActiveRentals(1L);
+        verify(bookRepository, times(1)).returnCopy(1L);
+    }
+
+    @Test
+    @DisplayName("Should not restock twice when a concurrent return already won")
+    void testReturnBook_ConcurrentDoubleReturn() {
+
+        when(userDetails.getUsername()).thenReturn("user@test.com");
+        when(userRepository.findByEmail("user@test.com")).thenReturn(Optional.of(testUser));
+        when(rentalRepository.findWithBookById(1L)).thenReturn(Optional.of(testRental));
+        when(rentalRepository.markReturned(1L)).thenReturn(0);
+
+
+        ResponseEntity<?> response = rentalService.returnBook(1L, userDetails);
+
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(userRepository, never()).decrementActiveRentals(any());
+        verify(bookRepository, never()).returnCopy(any());
+    }
+
+    @Test
+    @DisplayName("Should renew by updating only the due date of the active rental")
+    void testRenewBook_Success() {
+        LocalDate newDue = testRental.getDueDate().plusWeeks(1);
+        when(userDetails.getUsername()).thenReturn("user@test.com");
+        when(userRepository.findByEmail("user@test.com")).thenReturn(Optional.of(testUser));
+        when(rentalRepository.findWithBookById(1L)).thenReturn(Optional.of(testRental));
+        when(rentalRepository.renew(1L, 1L, newDue)).thenReturn(1);
+
+
+        ResponseEntity<?> response = rentalService.renewBook(1L, null, null, userDetails);
+
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(newDue, ((RentalDto) response.getBody()).getDueDate());
+        verify(rentalRepository, never()).save(any(Rental.class));
+    }
+
+    @Test
+    @DisplayName("Should reject a renewal when a concurrent return already won")
+    void testRenewBook_ConcurrentReturn() {
+
+        when(userDetails.getUsername()).thenReturn("user@test.com");
+        when(userRepository.findByEmail("user@test.com")).thenReturn(Optional.of(testUser));
+        when(rentalRepository.findWithBookById(1L)).thenReturn(Optional.of(testRental));
+        when(rentalRepository.renew(eq(1L), eq(1L), any(LocalDate.class))).thenReturn(0);
+
+
+        ResponseEntity<?> response = rentalService.renewBook(1L, 7, null, userDetails);
+
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(rentalRepository, never()).save(any(Rental.class));
+    }
+
+    @Test
+    @DisplayName("Should list archived rentals together with current ones in id order")
+    void testGetMyRentals_IncludesArchived() {
+        RentalDto archived = new RentalDto(0L, 1L, "Test Book", "Test Author",
+                LocalDate.now().minusYears(1), LocalDate.now().minusYears(1).plusDays(7), true);
+        when(userDetails.getUsername()).thenReturn("user@test.com");
+        when(userRepository.findByEmail("user@test.com")).thenReturn(Optional.of(testUser));
+        when(rentalRepository.findDtosByUserId(1L)).thenReturn(List.of(RentalMapper.toDto(testRental)));
+        when(archivedRentalRepository.findDtosByUserId(1L)).thenReturn(List.of(archived));
+
+
+        ResponseEntity<?> response = rentalService.getMyRentals(userDetails);
+
+
+        @SuppressWarnings("unchecked")
+        List<RentalDto> rentals = (List<RentalDto>) response.getBody();
+        assertEquals(2, rentals.size());
+        assertEquals(0L, rentals.get(0).getId());
+        assertTrue(rentals.get(0).isReturned());
+        assertEquals(1L, rentals.get(1).getId());
     }
 }
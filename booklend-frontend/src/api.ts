@@ -94,6 +94,27 @@ export async function fetchBooks(): Promise<Book[]> {
     }
 }
 
+export interface GenreStats {
+    genre: string;
+    titles: number;
+    totalStock: number;
+    borrowed: number;
+    availabilityRatio: number;
+}
+
+export async function fetchGenreStats(): Promise<GenreStats[]> {
+    try {
+        const response = await fetch(`${API_BASE_URL}/books/genres`);
+        if (!response.ok) {
+            throw new Error("Failed to fetch genres");
+        }
+        return await response.json();
+    } catch (error) {
+        console.error("Error fetching genres:", error);
+        return [];
+    }
+}
+
 function authHeaders(): Record<string, string> {
     const token = getToken();
     return token ? { Authorization: `Bearer ${token}` } : {};
@@ -217,9 +238,13 @@ export async function returnBook(rentalId: number): Promise<{ success: boolean;
     }
 }
 
-export function getBookImageUrl(book: Book): string {
+// Downscaled copies generated by the backend; omit the variant for the original upload
+export type ImageVariant = "thumb" | "card" | "detail";
+
+export function getBookImageUrl(book: Book, variant?: ImageVariant): string {
     if (book.imageFilename) {
-        return `${API_BASE_URL.replace("/api", "")}/uploads/${book.imageFilename}`;
+        if (variant) return `${API_BASE_URL}/books/${book.id}/images/${variant}`;
+        return `${API_BASE_URL.replace("/api", "")}/covers/${book.imageFilename}`;
     }
     const genrePlaceholders: Record<string, string> = {
         Fiction:
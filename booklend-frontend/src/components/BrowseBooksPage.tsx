@@ -488,7 +488,7 @@ export function BrowseBooksPage({ onNavigate, onLogout, isAdmin = false }: Brows
                     <div className="flex justify-between items-start gap-4 mb-4">
                         <div className="flex gap-4 items-start">
                             <div className="w-24 h-32 rounded-xl overflow-hidden shadow-md border border-gray-100 bg-gray-100 flex-shrink-0">
-                                <ImageWithFallback src={getBookImageUrl(book)} alt={book.title} className="w-full h-full object-cover" />
+                                <ImageWithFallback src={getBookImageUrl(book, "thumb")} alt={book.title} className="w-full h-full object-cover" />
                             </div>
                             <div className="space-y-2">
                                 <div className="inline-flex items-center gap-2 bg-blue-50 text-blue-700 px-2 py-1 rounded-full text-xs font-semibold uppercase tracking-wide">
@@ -728,7 +728,7 @@ export function BrowseBooksPage({ onNavigate, onLogout, isAdmin = false }: Brows
                                             >
                                                 <div className="relative aspect-[3/4] bg-gray-100">
                                                     <ImageWithFallback
-                                                        src={getBookImageUrl(book)}
+                                                        src={getBookImageUrl(book, "card")}
                                                         alt={book.title}
                                                         className="w-full h-full object-cover"
                                                     />
@@ -1,6 +1,6 @@
 import { useState, useEffect } from "react";
 import { Navbar } from "./Navbar";
-import { fetchBooks } from "../api";
+import { fetchGenreStats } from "../api";
 import {
     BookOpen,
     Heart,
@@ -26,19 +26,12 @@ interface CategoriesPageProps {
 }
 
 export function CategoriesPage({ onNavigate, onLogout }: CategoriesPageProps) {
-    const [books, setBooks] = useState<any[]>([]);
     const [categories, setCategories] = useState<any[]>([]);
 
     useEffect(() => {
-        async function loadBooks() {
-            const data = await fetchBooks();
-            setBooks(data);
-
-            // Get unique genres and count books per genre
-            const genreCounts: Record<string, number> = {};
-            data.forEach((book) => {
-                genreCounts[book.genre] = (genreCounts[book.genre] || 0) + 1;
-            });
+        async function loadCategories() {
+            // Per-genre counts are aggregated by the server
+            const stats = await fetchGenreStats();
 
             // Icon mapping with smart matching for genre names
             const getIconForGenre = (genre: string): any => {
@@ -94,7 +87,7 @@ export function CategoriesPage({ onNavigate, onLogout }: CategoriesPageProps) {
                 return "bg-blue-100 text-blue-600 border-blue-200"; // Default color
             };
 
-            const categoryList = Object.entries(genreCounts).map(([genre, count]) => ({
+            const categoryList = stats.map(({ genre, titles: count }) => ({
                 name: genre,
                 icon: getIconForGenre(genre),
                 color: getColorForGenre(genre),
@@ -104,7 +97,7 @@ export function CategoriesPage({ onNavigate, onLogout }: CategoriesPageProps) {
 
             setCategories(categoryList);
         }
-        loadBooks();
+        loadCategories();
     }, []);
 
     return (
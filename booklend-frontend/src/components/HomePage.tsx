@@ -197,7 +197,7 @@ export function HomePage({ onNavigate, onLogout }: HomePageProps) {
                                 >
                                     <div className="relative aspect-[3/4] bg-gray-100">
                                         <ImageWithFallback
-                                            src={getBookImageUrl(book)}
+                                            src={getBookImageUrl(book, "card")}
                                             alt={book.title}
                                             className="w-full h-full object-cover"
                                         />
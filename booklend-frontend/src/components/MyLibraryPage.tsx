@@ -192,7 +192,7 @@ export function MyLibraryPage({ onNavigate, onLogout }: MyLibraryPageProps) {
                             <div className="flex flex-col sm:flex-row gap-6">
                                 <div className="w-24 h-32 flex-shrink-0 bg-gray-100 rounded-lg overflow-hidden">
                                     <ImageWithFallback
-                                        src={getBookImageUrl(book)}
+                                        src={getBookImageUrl(book, "thumb")}
                                         alt={book.title}
                                         className="w-full h-full object-cover"
                                     />